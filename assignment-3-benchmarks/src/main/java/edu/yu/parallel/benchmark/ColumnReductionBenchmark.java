@@ -0,0 +1,94 @@
+package edu.yu.parallel.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.yu.parallel.implementation.ColumnReductions;
+
+/**
+ * Compares the scalar and Vector API column reductions on in-memory columns:
+ * the argmax of the closes and of the volumes, and the per-year scan that
+ * ColumnarDataProcessor does, which cuts the dates into runs of one year and
+ * reduces each run. The default of 100M rows takes about 2 GB of heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector", "-Xmx3g" })
+public class ColumnReductionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Columns {
+        @Param({ "scalar", "vector" })
+        public String reductions;
+
+        @Param({ "100000000" })
+        public int rows;
+
+        @Param({ "10" })
+        public int years;
+
+        ColumnReductions implementation;
+        int[] dates;
+        double[] closes;
+        long[] volumes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            implementation = reductions.equals("vector") ? ColumnReductions.vector() : ColumnReductions.scalar();
+            SplittableRandom random = new SplittableRandom(rows);
+            dates = new int[rows];
+            closes = new double[rows];
+            volumes = new long[rows];
+            // Sorted by date, as the quote files are, so each year is one run
+            for (int i = 0; i < rows; i++) {
+                int day = (int) ((long) i * years * 365 / rows);
+                dates[i] = (2000 + day / 365) * 10000 + 101 + day % 365 / 31 * 100 + day % 31;
+                closes[i] = random.nextInt(1_000_000) / 100.0;
+                volumes[i] = (long) Math.exp(8 + random.nextDouble() * 10);
+            }
+        }
+    }
+
+    @Benchmark
+    public int maxClose(Columns columns) {
+        return columns.implementation.argMax(columns.closes, 0, columns.rows);
+    }
+
+    @Benchmark
+    public int maxVolume(Columns columns) {
+        return columns.implementation.argMax(columns.volumes, 0, columns.rows);
+    }
+
+    /**
+     * @return A sum of the argmaxes and counts, so none of them is dead code.
+     */
+    @Benchmark
+    public long statsByYear(Columns columns) {
+        ColumnReductions reductions = columns.implementation;
+        long sum = 0;
+        int run = 0;
+        while (run < columns.rows) {
+            int year = columns.dates[run] / 10000;
+            int end = reductions.firstOutside(columns.dates, run + 1, columns.rows, year * 10000, (year + 1) * 10000);
+            sum += reductions.argMax(columns.closes, run, end) + reductions.argMax(columns.volumes, run, end)
+                    + (end - run);
+            run = end;
+        }
+        return sum;
+    }
+}
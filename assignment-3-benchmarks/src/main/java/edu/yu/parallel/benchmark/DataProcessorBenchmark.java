@@ -0,0 +1,89 @@
+package edu.yu.parallel.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.SnpDataGenerator;
+import edu.yu.parallel.TickerStats;
+
+/**
+ * Runs each DataProcessor over a generated quote file.
+ * <p>
+ * The processor parameter is the simple name of a class in
+ * edu.yu.parallel.implementation without the DataProcessor suffix, so a new
+ * engine can be benchmarked with -p processor=Name without changing this class.
+ * The rows and megabytes counters are reported as rates next to ops/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+// With snpdata built with -Pvector, the module lets ColumnarDataProcessor use the Vector API
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class DataProcessorBenchmark {
+    private static final String IMPLEMENTATION_PACKAGE = "edu.yu.parallel.implementation.";
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({ "Sequential", "Parallel", "ParallelStreams", "MemoryMapped", "Columnar" })
+        public String processor;
+
+        @Param({ "1000000" })
+        public int rows;
+
+        @Param({ "500" })
+        public int tickers;
+
+        DataProcessor dataProcessor;
+        Path file;
+        long fileSize;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            dataProcessor = (DataProcessor) Class.forName(IMPLEMENTATION_PACKAGE + processor + "DataProcessor")
+                    .getDeclaredConstructor().newInstance();
+            file = Files.createTempFile("snpdata-" + rows + "-", ".csv");
+            new SnpDataGenerator().rows(rows).tickers(tickers).seed(rows).write(file.toString());
+            fileSize = Files.size(file);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long rows;
+        public double megabytes;
+    }
+
+    @Benchmark
+    public Map<Integer, TickerStats> processFile(Input input, Throughput throughput) throws Exception {
+        Map<Integer, TickerStats> result = input.dataProcessor.processFile(input.file.toString());
+        throughput.rows += input.rows;
+        throughput.megabytes += input.fileSize / 1_000_000.0;
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package edu.yu.parallel.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.SnpDataGenerator;
+import edu.yu.parallel.TickerStats;
+import edu.yu.parallel.implementation.MemoryMappedDataProcessor;
+import edu.yu.parallel.implementation.ParallelDataProcessor;
+
+/**
+ * Runs the chunked processors with plain and with padded accumulators. The
+ * padding only pays off when workers on different cores write accumulators
+ * that share a cache line, so compare the two on a machine with several cores
+ * and set workers to the number of cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(2)
+public class PaddedAccumulatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({ "MemoryMapped", "Parallel" })
+        public String processor;
+
+        @Param({ "false", "true" })
+        public boolean padded;
+
+        @Param({ "4" })
+        public int workers;
+
+        @Param({ "2000000" })
+        public int rows;
+
+        @Param({ "500" })
+        public int tickers;
+
+        DataProcessor dataProcessor;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            switch (processor) {
+                case "MemoryMapped":
+                    MemoryMappedDataProcessor memoryMapped = new MemoryMappedDataProcessor(workers,
+                            MemoryMappedDataProcessor.DEFAULT_CHUNK_SIZE);
+                    dataProcessor = padded ? memoryMapped.withPaddedAccumulators() : memoryMapped;
+                    break;
+                case "Parallel":
+                    ParallelDataProcessor parallel = new ParallelDataProcessor(workers,
+                            ParallelDataProcessor.DEFAULT_BLOCK_SIZE);
+                    dataProcessor = padded ? parallel.withPaddedAccumulators() : parallel;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown processor " + processor);
+            }
+            file = Files.createTempFile("snpdata-" + rows + "-", ".csv");
+            new SnpDataGenerator().rows(rows).tickers(tickers).seed(rows).write(file.toString());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, TickerStats> processFile(Input input) throws Exception {
+        return input.dataProcessor.processFile(input.file.toString());
+    }
+}
@@ -0,0 +1,123 @@
+package edu.yu.parallel.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import edu.yu.parallel.SnpAnalysisServer;
+import edu.yu.parallel.SnpDataGenerator;
+
+/**
+ * Jobs per second that one SnpAnalysisServer answers under concurrent load.
+ * Each benchmark thread is a client with its own loopback connection, which
+ * sends an ANALYZE request and reads the whole answer before sending the
+ * next, so the score is the server's throughput with that many clients.
+ * Change the number of clients with -t. The queue holds a job per client, so
+ * no request is answered BUSY.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(8)
+public class ServerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({ "sequential", "memory-mapped" })
+        public String processor;
+
+        @Param({ "0" })
+        public int serverThreads;
+
+        @Param({ "100000" })
+        public int rows;
+
+        @Param({ "500" })
+        public int tickers;
+
+        SnpAnalysisServer server;
+        int port;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkParams params) throws Exception {
+            int threads = serverThreads > 0 ? serverThreads : Runtime.getRuntime().availableProcessors();
+            server = new SnpAnalysisServer(threads, params.getThreads(), params.getThreads());
+            port = server.listen(0);
+            file = Files.createTempFile("snpdata-" + rows + "-", ".csv");
+            new SnpDataGenerator().rows(rows).tickers(tickers).seed(rows).write(file.toString());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            server.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        Socket socket;
+        PrintWriter out;
+        BufferedReader in;
+        String request;
+        long id;
+
+        @Setup(Level.Trial)
+        public void setUp(Server server) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.port);
+            out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            request = " ANALYZE " + server.processor + " " + server.file;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * @return The number of year lines in the answer.
+     */
+    @Benchmark
+    public int analyze(Client client) throws IOException {
+        long id = client.id++;
+        client.out.println(id + client.request);
+        String status = client.in.readLine();
+        String[] parts = status == null ? new String[0] : status.split(" ");
+        if (parts.length < 3 || !parts[1].equals("OK")) {
+            throw new IllegalStateException("Unexpected answer: " + status);
+        }
+        int years = Integer.parseInt(parts[2]);
+        for (int i = 0; i < years; i++) {
+            client.in.readLine();
+        }
+        return years;
+    }
+}
@@ -0,0 +1,91 @@
+package edu.yu.parallel.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.SnpDataGenerator;
+import edu.yu.parallel.TickerStats;
+import edu.yu.parallel.implementation.MemoryMappedDataProcessor;
+import edu.yu.parallel.implementation.ParallelDataProcessor;
+import edu.yu.parallel.implementation.SequentialDataProcessor;
+
+/**
+ * What ranking the top K tickers each year costs on top of the single highs:
+ * each processor runs over the same generated file with topK 0 and with
+ * topK 100. The file takes about 46 bytes a row, so use a row count whose
+ * file fits in the page cache, or the runs measure the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(2)
+public class TopTickersBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({ "Sequential", "MemoryMapped", "Parallel" })
+        public String processor;
+
+        @Param({ "0", "100" })
+        public int topK;
+
+        @Param({ "10000000" })
+        public int rows;
+
+        @Param({ "500" })
+        public int tickers;
+
+        DataProcessor dataProcessor;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            int cores = Runtime.getRuntime().availableProcessors();
+            switch (processor) {
+                case "Sequential":
+                    dataProcessor = new SequentialDataProcessor(topK);
+                    break;
+                case "MemoryMapped":
+                    dataProcessor = new MemoryMappedDataProcessor(cores, MemoryMappedDataProcessor.DEFAULT_CHUNK_SIZE,
+                            topK);
+                    break;
+                case "Parallel":
+                    dataProcessor = new ParallelDataProcessor().withTopK(topK);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown processor " + processor);
+            }
+            file = Files.createTempFile("snpdata-" + rows + "-", ".csv");
+            new SnpDataGenerator().rows(rows).tickers(tickers).seed(rows).write(file.toString());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, TickerStats> processFile(Input input) throws Exception {
+        return input.dataProcessor.processFile(input.file.toString());
+    }
+}
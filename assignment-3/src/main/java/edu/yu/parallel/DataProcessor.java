@@ -1,6 +1,7 @@
 package edu.yu.parallel;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 public interface DataProcessor {
@@ -12,4 +13,48 @@ public interface DataProcessor {
      * @throws ProcessingException If an error occurs while reading or processing the file.
      */
     Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException;
+
+    /**
+     * Same as {@link #processFile(String)}, but also returns the metrics of
+     * this run. The default only knows the elapsed time and the number of
+     * quotes in the result; the processors in this project override it to
+     * report their reads, parses, merges and workers too.
+     *
+     * @param filePath The path to the CSV file.
+     * @return The stats and the metrics of the run.
+     * @throws ProcessingException If an error occurs while reading or processing the file.
+     */
+    default RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        long startTime = System.nanoTime();
+        Map<Integer, TickerStats> stats = processFile(filePath);
+        long rows = 0;
+        for (TickerStats yearStats : stats.values()) {
+            rows += yearStats.getQuoteCount();
+        }
+        return new RunResult(stats, new RunMetrics(getClass().getSimpleName(), filePath, 0, rows, 0, 0, 0,
+                System.nanoTime() - startTime, 0, Map.of()));
+    }
+
+    /**
+     * Same as {@link #processFile(String)}, but only for quotes from fromYear to
+     * toYear inclusive. The default scans the whole file and drops the other
+     * years; implementations may override it to skip the parts of the file
+     * outside the range, as long as the result stays the same.
+     *
+     * @param filePath The path to the CSV file.
+     * @param fromYear The first year to include.
+     * @param toYear   The last year to include.
+     * @return A map where the key is the year, and the value is a TickerStats object representing the statistics for that year.
+     * @throws ProcessingException If an error occurs while reading or processing the file.
+     */
+    default Map<Integer, TickerStats> processFile(String filePath, int fromYear, int toYear)
+            throws IOException, ProcessingException {
+        Map<Integer, TickerStats> inRange = new HashMap<>();
+        for (Map.Entry<Integer, TickerStats> entry : processFile(filePath).entrySet()) {
+            if (entry.getKey() >= fromYear && entry.getKey() <= toYear) {
+                inRange.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return inRange;
+    }
 }
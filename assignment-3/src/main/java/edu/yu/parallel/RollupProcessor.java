@@ -0,0 +1,19 @@
+package edu.yu.parallel;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public interface RollupProcessor {
+    /**
+     * Processes a given CSV file once and calculates the highs of every
+     * period for each of the bucketings.
+     *
+     * @param filePath   The path to the CSV file.
+     * @param bucketings The ways to group the quotes by date, e.g. {@link TimeBucket#MONTH}.
+     * @return For each bucketing, a map where the key is the bucket, and the value is a TickerStats object representing the statistics for that period.
+     * @throws ProcessingException If an error occurs while reading or processing the file.
+     */
+    Map<TimeBucketing, Map<Integer, TickerStats>> processFile(String filePath,
+            List<? extends TimeBucketing> bucketings) throws IOException, ProcessingException;
+}
@@ -0,0 +1,147 @@
+package edu.yu.parallel;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What one processFile run did: how much it read and parsed, where the time
+ * went, how evenly the rows were spread over the workers, and roughly how much
+ * it allocated. Times are summed over the threads that did the work, so
+ * parse time can exceed the elapsed time of a parallel run.
+ */
+public class RunMetrics {
+    private final String processor;
+    private final String file;
+    private final long bytesRead;
+    private final long rowsParsed;
+    private final long readNanos;
+    private final long parseNanos;
+    private final long mergeNanos;
+    private final long elapsedNanos;
+    private final long allocatedBytes;
+    private final Map<String, Long> rowsByWorker;
+    private final String selection;
+    private final String selectionReason;
+
+    /**
+     * @param rowsByWorker   The rows parsed by each worker thread, by thread name.
+     * @param allocatedBytes The heap allocated by the run's threads, or 0 if the
+     *                       JVM does not measure it.
+     */
+    public RunMetrics(String processor, String file, long bytesRead, long rowsParsed, long readNanos,
+            long parseNanos, long mergeNanos, long elapsedNanos, long allocatedBytes, Map<String, Long> rowsByWorker) {
+        this(processor, file, bytesRead, rowsParsed, readNanos, parseNanos, mergeNanos, elapsedNanos, allocatedBytes,
+                rowsByWorker, null, null);
+    }
+
+    /**
+     * @param selection       The processor an adaptive processor picked for the run, or null.
+     * @param selectionReason Why it was picked, or null.
+     */
+    public RunMetrics(String processor, String file, long bytesRead, long rowsParsed, long readNanos,
+            long parseNanos, long mergeNanos, long elapsedNanos, long allocatedBytes, Map<String, Long> rowsByWorker,
+            String selection, String selectionReason) {
+        this.processor = processor;
+        this.file = file;
+        this.bytesRead = bytesRead;
+        this.rowsParsed = rowsParsed;
+        this.readNanos = readNanos;
+        this.parseNanos = parseNanos;
+        this.mergeNanos = mergeNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.rowsByWorker = Collections.unmodifiableMap(new TreeMap<>(rowsByWorker));
+        this.selection = selection;
+        this.selectionReason = selectionReason;
+    }
+
+    /**
+     * @return These metrics, noting the processor chosen for the run and why.
+     */
+    public RunMetrics withSelection(String selection, String reason) {
+        return new RunMetrics(processor, file, bytesRead, rowsParsed, readNanos, parseNanos, mergeNanos, elapsedNanos,
+                allocatedBytes, rowsByWorker, selection, reason);
+    }
+
+    public String getProcessor() {
+        return processor;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed;
+    }
+
+    /**
+     * @return Time spent reading the file, apart from parsing it; 0 for
+     *         processors that parse memory-mapped or streamed bytes in place.
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getMergeNanos() {
+        return mergeNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public Map<String, Long> getRowsByWorker() {
+        return rowsByWorker;
+    }
+
+    /**
+     * @return The processor an adaptive processor chose for the run, or null
+     *         if the processor was not chosen at run time.
+     */
+    public String getSelection() {
+        return selection;
+    }
+
+    public String getSelectionReason() {
+        return selectionReason;
+    }
+
+    /**
+     * @return The most rows parsed by one worker over the average per worker:
+     *         1 when the work was spread evenly, the worker count when one
+     *         worker did it all.
+     */
+    public double getWorkerSkew() {
+        long max = 0;
+        long total = 0;
+        for (long rows : rowsByWorker.values()) {
+            max = Math.max(max, rows);
+            total += rows;
+        }
+        return total == 0 ? 1 : (double) max * rowsByWorker.size() / total;
+    }
+
+    @Override
+    public String toString() {
+        String summary = String.format("%s: %d bytes, %d rows in %d ms, read %d ms, parse %d ms, merge %d ms, "
+                + "%d workers (skew %.2f), ~%d MB allocated",
+                processor, bytesRead, rowsParsed, elapsedNanos / 1_000_000, readNanos / 1_000_000,
+                parseNanos / 1_000_000, mergeNanos / 1_000_000, rowsByWorker.size(), getWorkerSkew(),
+                allocatedBytes >> 20);
+        return selection == null ? summary : summary + ", chose " + selection + ": " + selectionReason;
+    }
+}
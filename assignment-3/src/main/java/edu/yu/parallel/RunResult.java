@@ -0,0 +1,29 @@
+package edu.yu.parallel;
+
+import java.util.Map;
+
+/**
+ * The stats of one processFile run together with the metrics of that run.
+ * Each run gets its own result, so concurrent runs on one processor never
+ * see each other's metrics.
+ */
+public class RunResult {
+    private final Map<Integer, TickerStats> stats;
+    private final RunMetrics metrics;
+
+    public RunResult(Map<Integer, TickerStats> stats, RunMetrics metrics) {
+        this.stats = stats;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return A map where the key is the year, and the value is a TickerStats object representing the statistics for that year.
+     */
+    public Map<Integer, TickerStats> getStats() {
+        return stats;
+    }
+
+    public RunMetrics getMetrics() {
+        return metrics;
+    }
+}
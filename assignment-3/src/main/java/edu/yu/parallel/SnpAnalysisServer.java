@@ -0,0 +1,406 @@
+package edu.yu.parallel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.implementation.AdaptiveDataProcessor;
+import edu.yu.parallel.implementation.MemoryMappedDataProcessor;
+import edu.yu.parallel.implementation.MultiFileDataProcessor;
+import edu.yu.parallel.implementation.ParallelDataProcessor;
+import edu.yu.parallel.implementation.ParallelStreamsDataProcessor;
+import edu.yu.parallel.implementation.SequentialDataProcessor;
+import edu.yu.parallel.implementation.WorkerSettings;
+
+/**
+ * Long-running analysis service, so that a stream of small analyses doesn't
+ * pay for JVM startup, class loading and JIT warmup each time. The server
+ * keeps one warm instance of each processor and runs jobs on a bounded
+ * executor: a job that finds all workers busy and the queue full is answered
+ * BUSY at once instead of piling up. Connections are bounded the same way:
+ * one beyond the limit is sent the line "* BUSY" and closed.
+ * <p>
+ * Concurrent jobs share the processor instances. That is safe because a
+ * processor keeps no state between processFile calls: each call builds its
+ * own tables, dictionary and workers, and its metrics come back with its
+ * result rather than through the processor.
+ * <p>
+ * The protocol is line based and the same over a loopback socket or
+ * stdin/stdout. Each request starts with an id chosen by the client, and
+ * requests on one connection may overlap; every response starts with the id
+ * of its request and is written in one piece.
+ * <pre>
+ * &lt;id&gt; ANALYZE &lt;processor&gt; &lt;path&gt;
+ *     &lt;id&gt; OK &lt;years&gt; &lt;millis&gt;, then one line per year:
+ *     &lt;year&gt; TAB &lt;quotes&gt; TAB &lt;close ticker&gt; TAB &lt;close&gt; TAB &lt;volume ticker&gt; TAB &lt;volume&gt;
+ * &lt;id&gt; PING          &lt;id&gt; PONG
+ * &lt;id&gt; STATS         &lt;id&gt; STATS completed=N failed=N rejected=N active=N queued=N refused=N
+ * Failures:           &lt;id&gt; ERROR &lt;message&gt;, or &lt;id&gt; BUSY
+ * </pre>
+ * The processor is one of {@link #processorNames()}; "default" picks the
+ * memory-mapped processor for a file and the multi-file one for a directory
+ * or glob, as SnpDataAnalysis does, and "auto" lets an
+ * {@link AdaptiveDataProcessor} pick by file size.
+ */
+public class SnpAnalysisServer implements AutoCloseable {
+    private final static Logger logger = LogManager.getLogger(SnpAnalysisServer.class);
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_MAX_CONNECTIONS = 32;
+
+    private final Map<String, DataProcessor> processors = new LinkedHashMap<>();
+    private final ThreadPoolExecutor jobs;
+    private final ThreadPoolExecutor connections;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    // Connection threads block in readLine, which an interrupt doesn't end, so close() closes their sockets
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    public SnpAnalysisServer() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param threads       The number of jobs that run at once.
+     * @param queueCapacity The number of jobs that may wait for a thread.
+     */
+    public SnpAnalysisServer(int threads, int queueCapacity) {
+        this(threads, queueCapacity, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param threads        The number of jobs that run at once.
+     * @param queueCapacity  The number of jobs that may wait for a thread.
+     * @param maxConnections The number of socket connections served at once.
+     */
+    public SnpAnalysisServer(int threads, int queueCapacity, int maxConnections) {
+        if (threads < 1 || queueCapacity < 0 || maxConnections < 1) {
+            throw new IllegalArgumentException(
+                    "threads and maxConnections must be positive and queueCapacity not negative");
+        }
+        jobs = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                queueCapacity == 0 ? new SynchronousQueue<>()
+                        : new ArrayBlockingQueue<>(queueCapacity));
+        // A connection holds its thread for the whole session, so none wait for one
+        connections = new ThreadPoolExecutor(maxConnections, maxConnections, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>());
+        processors.put("sequential", new SequentialDataProcessor());
+        processors.put("parallel", new ParallelDataProcessor());
+        processors.put("parallel-streams", new ParallelStreamsDataProcessor());
+        processors.put("memory-mapped", new MemoryMappedDataProcessor());
+        processors.put("multi-file", new MultiFileDataProcessor());
+        processors.put("auto", new AdaptiveDataProcessor(WorkerSettings.defaultFile()));
+    }
+
+    public List<String> processorNames() {
+        List<String> names = new ArrayList<>(processors.keySet());
+        names.add("default");
+        return names;
+    }
+
+    /**
+     * Runs every processor over a generated file a few times, so the first
+     * real jobs find the parse loops already compiled.
+     */
+    public void warmUp() throws IOException, ProcessingException {
+        long startTime = System.nanoTime();
+        Path dir = Files.createTempDirectory("snp-warmup");
+        Path csv = dir.resolve("warmup.csv");
+        try {
+            new SnpDataGenerator().rows(200_000).seed(1).write(csv.toString());
+            for (int i = 0; i < 5; i++) {
+                for (Map.Entry<String, DataProcessor> entry : processors.entrySet()) {
+                    entry.getValue().processFile(entry.getKey().equals("multi-file") ? dir.toString() : csv.toString());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(dir);
+        }
+        logger.info("Warmed up in {} ms", (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * Accepts connections on the loopback interface in the background.
+     *
+     * @param port The port to listen on, or 0 for any free one.
+     * @return The port listened on.
+     */
+    public int listen(int port) throws IOException {
+        ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        serverSocket = socket;
+        Thread acceptor = new Thread(() -> {
+            while (!socket.isClosed()) {
+                try {
+                    Socket connection = socket.accept();
+                    open.add(connection);
+                    if (closed) {
+                        // close() may have run before the socket was added
+                        open.remove(connection);
+                        connection.close();
+                        return;
+                    }
+                    try {
+                        connections.execute(() -> {
+                            try (connection) {
+                                serve(connection.getInputStream(), connection.getOutputStream());
+                            } catch (IOException e) {
+                                logger.debug("Connection closed: {}", e.getMessage());
+                            } finally {
+                                open.remove(connection);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        open.remove(connection);
+                        if (connections.isShutdown()) {
+                            connection.close();
+                            return;
+                        }
+                        refuse(connection);
+                    }
+                } catch (IOException e) {
+                    if (!socket.isClosed()) {
+                        logger.warn("Accept failed: {}", e.getMessage());
+                    }
+                }
+            }
+        }, "snp-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Listening on {}", socket.getLocalSocketAddress());
+        return socket.getLocalPort();
+    }
+
+    private void refuse(Socket connection) {
+        refused.incrementAndGet();
+        try (connection) {
+            OutputStream out = connection.getOutputStream();
+            out.write("* BUSY\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            logger.debug("Could not refuse connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Serves one session: reads requests until the end of the input, then
+     * waits for the jobs it started to answer.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        List<Future<?>> pending = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                pending.removeIf(Future::isDone);
+                Future<?> job = handle(line.strip(), writer);
+                if (job != null) {
+                    pending.add(job);
+                }
+            }
+        }
+        for (Future<?> job : pending) {
+            try {
+                job.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // The job already reported its failure
+            }
+        }
+    }
+
+    /**
+     * @return The job started for the request, or null if it was answered at once.
+     */
+    private Future<?> handle(String request, Writer writer) throws IOException {
+        String[] parts = request.split(" ", 4);
+        String id = parts[0];
+        String command = parts.length > 1 ? parts[1] : "";
+        switch (command) {
+            case "PING":
+                respond(writer, id + " PONG\n");
+                return null;
+            case "STATS":
+                respond(writer, String.format(
+                        "%s STATS completed=%d failed=%d rejected=%d active=%d queued=%d refused=%d\n", id,
+                        completed.get(), failed.get(), rejected.get(), jobs.getActiveCount(), jobs.getQueue().size(),
+                        refused.get()));
+                return null;
+            case "ANALYZE":
+                if (parts.length < 4) {
+                    respond(writer, id + " ERROR Usage: <id> ANALYZE <processor> <path>\n");
+                    return null;
+                }
+                DataProcessor processor = processor(parts[2], parts[3]);
+                if (processor == null) {
+                    respond(writer, id + " ERROR Unknown processor " + parts[2] + ", expected one of "
+                            + processorNames() + "\n");
+                    return null;
+                }
+                try {
+                    return jobs.submit(() -> {
+                        analyze(id, processor, parts[3], writer);
+                        return null;
+                    });
+                } catch (RejectedExecutionException e) {
+                    rejected.incrementAndGet();
+                    respond(writer, id + " BUSY\n");
+                    return null;
+                }
+            default:
+                respond(writer, id + " ERROR Unknown command: " + command + "\n");
+                return null;
+        }
+    }
+
+    private DataProcessor processor(String name, String path) {
+        if (name.equals("default")) {
+            return processors.get(MultiFileDataProcessor.isMultiFile(path) ? "multi-file" : "memory-mapped");
+        }
+        return processors.get(name);
+    }
+
+    private void analyze(String id, DataProcessor processor, String path, Writer writer) throws IOException {
+        long startTime = System.nanoTime();
+        StringBuilder response = new StringBuilder();
+        try {
+            RunResult result = processor.processFileWithMetrics(path);
+            logger.debug("{}: {}", id, result.getMetrics());
+            Map<Integer, TickerStats> stats = new TreeMap<>(result.getStats());
+            response.append(id).append(" OK ").append(stats.size()).append(' ')
+                    .append((System.nanoTime() - startTime) / 1_000_000).append('\n');
+            for (Map.Entry<Integer, TickerStats> entry : stats.entrySet()) {
+                TickerStats year = entry.getValue();
+                response.append(entry.getKey()).append('\t').append(year.getQuoteCount()).append('\t')
+                        .append(year.getHighestCloseTicker()).append('\t').append(year.getHighestClose()).append('\t')
+                        .append(year.getHighestVolumeTicker()).append('\t').append(year.getHighestVolume())
+                        .append('\n');
+            }
+            completed.incrementAndGet();
+        } catch (IOException | ProcessingException | RuntimeException e) {
+            failed.incrementAndGet();
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            response.setLength(0);
+            response.append(id).append(" ERROR ").append(message.replace('\n', ' ')).append('\n');
+        }
+        respond(writer, response.toString());
+    }
+
+    private static void respond(Writer writer, String response) throws IOException {
+        synchronized (writer) {
+            writer.write(response);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Stops accepting connections and jobs, closes the open connections, and
+     * waits briefly for running jobs.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket connection : open) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                logger.debug("Could not close connection: {}", e.getMessage());
+            }
+        }
+        connections.shutdownNow();
+        jobs.shutdown();
+        try {
+            jobs.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        jobs.shutdownNow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = DEFAULT_QUEUE_CAPACITY;
+        int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        boolean warmUp = true;
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            String value = option.length > 1 ? option[1] : "";
+            switch (option[0]) {
+                case "port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "stdin":
+                    port = -1;
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "queue":
+                    queue = Integer.parseInt(value);
+                    break;
+                case "connections":
+                    maxConnections = Integer.parseInt(value);
+                    break;
+                case "warmup":
+                    warmUp = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    System.err.println("Usage: java SnpAnalysisServer [port=N | stdin] [threads=N] [queue=N] "
+                            + "[connections=N] [warmup=true|false]");
+                    return;
+            }
+        }
+
+        try (SnpAnalysisServer server = new SnpAnalysisServer(threads, queue, maxConnections)) {
+            if (warmUp) {
+                server.warmUp();
+            }
+            if (port < 0) {
+                server.serve(System.in, System.out);
+            } else {
+                server.listen(port);
+                // Serve until the process is stopped
+                Thread.currentThread().join();
+            }
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package edu.yu.parallel;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import edu.yu.parallel.implementation.AdaptiveDataProcessor;
+import edu.yu.parallel.implementation.MemoryMappedDataProcessor;
+import edu.yu.parallel.implementation.MultiFileDataProcessor;
 import edu.yu.parallel.implementation.ParallelDataProcessor;
 import edu.yu.parallel.implementation.ParallelStreamsDataProcessor;
+import edu.yu.parallel.implementation.RollupDataProcessor;
 import edu.yu.parallel.implementation.SequentialDataProcessor;
+import edu.yu.parallel.implementation.WorkerSettings;
+import edu.yu.parallel.implementation.WorkerTuner;
 
 public class SnpDataAnalysis {
     private final static Logger logger = LogManager.getLogger(SnpDataAnalysis.class);
@@ -23,16 +31,17 @@ public class SnpDataAnalysis {
         logger.info("Processor: {}", processor.getClass().getSimpleName());
         try {
             startTime = System.nanoTime();
-            var resultMap = processor.processFile(filePath);
+            RunResult result = processor.processFileWithMetrics(filePath);
             endTime = System.nanoTime();
 
             // Print results in order of year
-            Map<Integer, TickerStats> sortedMap = new TreeMap<>(resultMap);
+            Map<Integer, TickerStats> sortedMap = new TreeMap<>(result.getStats());
             for (Map.Entry<Integer, TickerStats> entry : sortedMap.entrySet()) {
                 int year = entry.getKey();
                 var highs = entry.getValue();
                 System.out.printf("%d: %s%n", year, highs.Summary());
             }
+            logger.info("Metrics: {}", result.getMetrics());
         } catch (Exception e) {
             endTime = System.nanoTime();
             var cause = e.getCause() == null ? e : e.getCause();
@@ -41,19 +50,126 @@ public class SnpDataAnalysis {
         logger.info("Analysis complete in {} ms", (endTime - startTime) / 1_000_000);
     }
 
+    /**
+     * Prints the highs of every period for each of the bucketings, from one pass over the file.
+     */
+    public static void rollup(String filePath, List<TimeBucketing> bucketings) {
+        long startTime = System.nanoTime();
+        logger.info("Rolling up file: {} by {}", filePath, bucketings);
+        try {
+            var rollups = new RollupDataProcessor().processFile(filePath, bucketings);
+            for (Map.Entry<TimeBucketing, Map<Integer, TickerStats>> rollup : rollups.entrySet()) {
+                for (Map.Entry<Integer, TickerStats> entry : new TreeMap<>(rollup.getValue()).entrySet()) {
+                    System.out.printf("%s: %s%n", rollup.getKey().label(entry.getKey()), entry.getValue().Summary());
+                }
+            }
+        } catch (Exception e) {
+            var cause = e.getCause() == null ? e : e.getCause();
+            logger.error("{}: {}", cause.getClass().getSimpleName(), cause.getMessage());
+        }
+        logger.info("Rollup complete in {} ms", (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private static void printUsage() {
+        System.out.println(
+                "Usage: java SnpDataAnalysis <csv_file_path | directory | glob> [--auto | --tune | --max-in-flight-mb <mb>"
+                        + " | --rollup year,quarter,month,iso-week]");
+    }
+
+    /**
+     * @return The number of bytes in the given number of megabytes, or -1 if
+     *         it is not a positive number that fits in a long once scaled.
+     */
+    static long parseMegabytes(String megabytes) {
+        long value;
+        try {
+            value = Long.parseLong(megabytes);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (value < 1 || value > Long.MAX_VALUE >> 20) {
+            return -1;
+        }
+        return value << 20;
+    }
+
+    /**
+     * @return The time buckets named in a comma-separated list, or null if
+     *         one of the names is not a {@link TimeBucket}.
+     */
+    static List<TimeBucketing> parseBucketings(String names) {
+        List<TimeBucketing> bucketings = new ArrayList<>();
+        for (String name : names.split(",")) {
+            try {
+                bucketings.add(TimeBucket.of(name));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return bucketings;
+    }
+
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Usage: java SnpDataAnalysis <csv_file_path>");
+            printUsage();
             return;
         }
 
         String filePath = args[0];
+        if (args.length == 2 && (args[1].equals("--rollup") || args[1].equals("--max-in-flight-mb"))) {
+            printUsage();
+            return;
+        }
+        if (args.length >= 3 && args[1].equals("--rollup")) {
+            // Several granularities from a single pass
+            List<TimeBucketing> bucketings = parseBucketings(args[2]);
+            if (bucketings == null) {
+                System.out.println("--rollup takes bucket names separated by commas, not " + args[2]);
+                printUsage();
+                return;
+            }
+            rollup(filePath, bucketings);
+            return;
+        }
 
         DataProcessor[] processors = {
                 new SequentialDataProcessor(),
                 new ParallelDataProcessor(),
-                new ParallelStreamsDataProcessor()
+                new ParallelStreamsDataProcessor(),
+                new MemoryMappedDataProcessor()
         };
+        if (args.length >= 3 && args[1].equals("--max-in-flight-mb")) {
+            // Files larger than the heap: only the pipeline, with its buffers capped
+            long maxInFlightBytes = parseMegabytes(args[2]);
+            if (maxInFlightBytes < 0) {
+                System.out.println("--max-in-flight-mb takes a positive number of megabytes, not " + args[2]);
+                printUsage();
+                return;
+            }
+            if (MultiFileDataProcessor.isMultiFile(filePath)) {
+                // Only the single-file pipeline can cap its buffers
+                System.out.println("--max-in-flight-mb takes a single file, not a directory or glob");
+                printUsage();
+                return;
+            }
+            processors = new DataProcessor[] {
+                    ParallelDataProcessor.bounded(Runtime.getRuntime().availableProcessors(), maxInFlightBytes) };
+        } else if (args.length >= 2 && args[1].equals("--auto")) {
+            // One processor, picked for the file and the machine
+            processors = new DataProcessor[] { new AdaptiveDataProcessor(WorkerSettings.defaultFile()) };
+        } else if (args.length >= 2 && args[1].equals("--tune")) {
+            // Find the best workers and chunk size on this machine once, then use them
+            try {
+                processors = new DataProcessor[] {
+                        WorkerTuner.tune(filePath, WorkerSettings.defaultFile()).processor() };
+            } catch (Exception e) {
+                logger.error("Tuning failed: {}", e.getMessage());
+                return;
+            }
+        } else if (MultiFileDataProcessor.isMultiFile(filePath)) {
+            // A directory or glob is analyzed as one data set
+            processors = new DataProcessor[] { new MultiFileDataProcessor() };
+        }
 
         for (DataProcessor processor : processors) {
             logger.info("----- Begin: {} -----", processor.getClass().getSimpleName());
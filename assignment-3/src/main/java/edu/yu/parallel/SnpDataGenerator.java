@@ -0,0 +1,241 @@
+package edu.yu.parallel;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes synthetic quote files in the format DataProcessor.processFile expects:
+ * <pre>
+ * date,open,high,low,close,volume,Name
+ * 2013-02-08,15.07,15.12,14.63,14.75,8407500,AAL
+ * </pre>
+ * Output is a pure function of the settings, so the same seed always produces
+ * the same file. Quotes are in date order, spread evenly over the year range,
+ * and each ticker's close follows its own random walk. Rows are formatted
+ * straight into a byte buffer and streamed out, so memory use does not depend
+ * on the row count.
+ */
+public class SnpDataGenerator {
+    private final static Logger logger = LogManager.getLogger(SnpDataGenerator.class);
+    private static final byte[] HEADER = "date,open,high,low,close,volume,Name\n".getBytes();
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_LINE = 128;
+
+    private long rows = 1_000_000;
+    private int tickers = 500;
+    private int firstYear = 2000;
+    private int lastYear = 2019;
+    private int hotTickers = 0;
+    private double hotShare = 0;
+    private long seed = 1;
+
+    public SnpDataGenerator rows(long rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("rows must not be negative");
+        }
+        this.rows = rows;
+        return this;
+    }
+
+    public SnpDataGenerator tickers(int tickers) {
+        if (tickers < 1) {
+            throw new IllegalArgumentException("tickers must be positive");
+        }
+        this.tickers = tickers;
+        return this;
+    }
+
+    public SnpDataGenerator years(int firstYear, int lastYear) {
+        if (firstYear < 1000 || lastYear > 9999 || firstYear > lastYear) {
+            throw new IllegalArgumentException("years must be a four digit range");
+        }
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        return this;
+    }
+
+    /**
+     * Skews the ticker distribution: share of the rows go to the first count
+     * tickers, the rest are spread evenly over all tickers.
+     */
+    public SnpDataGenerator hotTickers(int count, double share) {
+        if (count < 0 || share < 0 || share > 1) {
+            throw new IllegalArgumentException("count must not be negative and share must be in [0, 1]");
+        }
+        this.hotTickers = count;
+        this.hotShare = share;
+        return this;
+    }
+
+    public SnpDataGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public void write(String filePath) throws IOException {
+        try (OutputStream out = new FileOutputStream(filePath)) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[][] names = new byte[tickers][];
+        long[] prices = new long[tickers];
+        for (int i = 0; i < tickers; i++) {
+            names[i] = tickerName(i);
+            prices[i] = 1_000 + random.nextLong(100_000);
+        }
+        int hot = Math.min(hotTickers, tickers);
+
+        long firstDay = LocalDate.of(firstYear, 1, 1).toEpochDay();
+        long days = LocalDate.of(lastYear + 1, 1, 1).toEpochDay() - firstDay;
+        long currentDay = -1;
+        byte[] date = new byte[11];
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        int pos = HEADER.length;
+        for (long row = 0; row < rows; row++) {
+            long day = firstDay + (long) ((double) row / rows * days);
+            if (day != currentDay) {
+                currentDay = day;
+                formatDate(LocalDate.ofEpochDay(day), date);
+            }
+            int ticker = hot > 0 && random.nextDouble() < hotShare ? random.nextInt(hot) : random.nextInt(tickers);
+
+            // Random walk in cents, never dropping below a dollar
+            long close = Math.max(100, prices[ticker] + random.nextLong(-prices[ticker] / 20, prices[ticker] / 20 + 2));
+            prices[ticker] = close;
+            long open = Math.max(100, close + random.nextLong(-close / 50, close / 50 + 1));
+            long high = Math.max(open, close) + random.nextLong(close / 50 + 1);
+            long low = Math.max(1, Math.min(open, close) - random.nextLong(close / 50 + 1));
+            long volume = (long) Math.exp(8 + random.nextDouble() * 10);
+
+            if (pos + MAX_LINE + names[ticker].length > buffer.length) {
+                out.write(buffer, 0, pos);
+                pos = 0;
+            }
+            System.arraycopy(date, 0, buffer, pos, date.length);
+            pos += date.length;
+            pos = writeCents(open, buffer, pos);
+            pos = writeCents(high, buffer, pos);
+            pos = writeCents(low, buffer, pos);
+            pos = writeCents(close, buffer, pos);
+            pos = writeLong(volume, buffer, pos);
+            buffer[pos++] = ',';
+            System.arraycopy(names[ticker], 0, buffer, pos, names[ticker].length);
+            pos += names[ticker].length;
+            buffer[pos++] = '\n';
+        }
+        out.write(buffer, 0, pos);
+        out.flush();
+    }
+
+    /**
+     * @return A distinct symbol of upper case letters: A, B, ..., Z, AA, AB, ...
+     */
+    static byte[] tickerName(int index) {
+        int length = 1;
+        for (long span = 26; index >= span; span *= 26) {
+            index -= (int) span;
+            length++;
+        }
+        byte[] name = new byte[length];
+        for (int i = length - 1; i >= 0; i--) {
+            name[i] = (byte) ('A' + index % 26);
+            index /= 26;
+        }
+        return name;
+    }
+
+    private static void formatDate(LocalDate date, byte[] out) {
+        writeDigits(date.getYear(), 4, out, 0);
+        out[4] = '-';
+        writeDigits(date.getMonthValue(), 2, out, 5);
+        out[7] = '-';
+        writeDigits(date.getDayOfMonth(), 2, out, 8);
+        out[10] = ',';
+    }
+
+    private static void writeDigits(int value, int width, byte[] out, int pos) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Writes cents as a dollar amount with two decimals followed by a comma.
+     */
+    private static int writeCents(long cents, byte[] out, int pos) {
+        pos = writeLong(cents / 100, out, pos);
+        out[pos++] = '.';
+        out[pos++] = (byte) ('0' + cents / 10 % 10);
+        out[pos++] = (byte) ('0' + cents % 10);
+        out[pos++] = ',';
+        return pos;
+    }
+
+    private static int writeLong(long value, byte[] out, int pos) {
+        int start = pos;
+        do {
+            out[pos++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte tmp = out[i];
+            out[i] = out[j];
+            out[j] = tmp;
+        }
+        return pos;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java SnpDataGenerator <csv_file_path> [rows=N] [tickers=N] "
+                    + "[years=FIRST-LAST] [hot=COUNT:SHARE] [seed=N]");
+            return;
+        }
+
+        SnpDataGenerator generator = new SnpDataGenerator();
+        for (int i = 1; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            String value = option.length > 1 ? option[1] : "";
+            switch (option[0]) {
+                case "rows":
+                    generator.rows(Long.parseLong(value.replace("_", "")));
+                    break;
+                case "tickers":
+                    generator.tickers(Integer.parseInt(value));
+                    break;
+                case "years":
+                    String[] years = value.split("-", 2);
+                    generator.years(Integer.parseInt(years[0]), Integer.parseInt(years[years.length - 1]));
+                    break;
+                case "hot":
+                    String[] hot = value.split(":", 2);
+                    generator.hotTickers(Integer.parseInt(hot[0]), hot.length > 1 ? Double.parseDouble(hot[1]) : 0.5);
+                    break;
+                case "seed":
+                    generator.seed(Long.parseLong(value));
+                    break;
+                default:
+                    logger.error("Unknown option: {}", args[i]);
+                    return;
+            }
+        }
+
+        long startTime = System.nanoTime();
+        generator.write(args[0]);
+        logger.info("Wrote {} rows to {} in {} ms", String.format("%,d", generator.rows), args[0],
+                (System.nanoTime() - startTime) / 1_000_000);
+    }
+}
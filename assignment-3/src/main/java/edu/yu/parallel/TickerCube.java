@@ -0,0 +1,41 @@
+package edu.yu.parallel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Per-(year, ticker) breakdown of a quote file.
+ */
+public interface TickerCube {
+    /**
+     * @return The number of (year, ticker) pairs with at least one quote.
+     */
+    int size();
+
+    /**
+     * @return The stats of the ticker in the year, or null if it has no quotes in it.
+     */
+    TickerYearStats get(int year, String ticker);
+
+    /**
+     * Calls the action with the stats of every (year, ticker) pair, in no
+     * particular order.
+     */
+    void forEach(Consumer<? super TickerYearStats> action);
+
+    /**
+     * @return The metrics of the run that built this cube, or null if it was
+     *         not built by a {@link TickerCubeProcessor}.
+     */
+    RunMetrics getMetrics();
+
+    /**
+     * @return The stats keyed by year and then by ticker.
+     */
+    default Map<Integer, Map<String, TickerYearStats>> toMap() {
+        Map<Integer, Map<String, TickerYearStats>> map = new HashMap<>();
+        forEach(stats -> map.computeIfAbsent(stats.getYear(), year -> new HashMap<>()).put(stats.getTicker(), stats));
+        return map;
+    }
+}
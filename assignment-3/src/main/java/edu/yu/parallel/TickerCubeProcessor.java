@@ -0,0 +1,14 @@
+package edu.yu.parallel;
+
+import java.io.IOException;
+
+public interface TickerCubeProcessor {
+    /**
+     * Processes a given CSV file and calculates stats for every ticker in every year.
+     *
+     * @param filePath The path to the CSV file.
+     * @return The per-(year, ticker) stats.
+     * @throws ProcessingException If an error occurs while reading or processing the file.
+     */
+    TickerCube processFile(String filePath) throws IOException, ProcessingException;
+}
@@ -0,0 +1,41 @@
+package edu.yu.parallel;
+
+/**
+ * Stats for the quotes of one ticker in one year.
+ */
+public interface TickerYearStats {
+    int getYear();
+
+    String getTicker();
+
+    /**
+     * @return The number of quotes of the ticker in the year.
+     */
+    int getQuoteCount();
+
+    /**
+     * @return The lowest close of the ticker in the year.
+     */
+    double getMinClose();
+
+    /**
+     * @return The highest close of the ticker in the year.
+     */
+    double getMaxClose();
+
+    /**
+     * @return The mean close of the ticker in the year.
+     */
+    double getAverageClose();
+
+    /**
+     * @return The sum of the volumes of the ticker's quotes in the year.
+     */
+    long getTotalVolume();
+
+    default String Summary() {
+        return String.format("%d %s Quotes: %d, Close: min %.2f, max %.2f, avg %.2f, Total Volume: %d",
+                getYear(), getTicker(), getQuoteCount(),
+                getMinClose(), getMaxClose(), getAverageClose(), getTotalVolume());
+    }
+}
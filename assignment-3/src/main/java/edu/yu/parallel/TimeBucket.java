@@ -0,0 +1,74 @@
+package edu.yu.parallel;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+
+/**
+ * Calendar years, quarters and months, and ISO-8601 weeks. Bucket keys sort
+ * in time order: yyyy for a year, yyyyq for a quarter, yyyymm for a month,
+ * and the week-based year and week as yyyyww for a week, whose first and
+ * last days may be in another calendar year. A date without month and day
+ * goes in bucket 0 of its year, e.g. 2013-00, and so does a date that is not
+ * a real day when bucketed by week.
+ */
+public enum TimeBucket implements TimeBucketing {
+    YEAR {
+        @Override
+        public int bucket(int date) {
+            return date / 10000;
+        }
+
+        @Override
+        public String label(int bucket) {
+            return String.valueOf(bucket);
+        }
+    },
+    QUARTER {
+        @Override
+        public int bucket(int date) {
+            int month = date / 100 % 100;
+            return date / 10000 * 10 + (month + 2) / 3;
+        }
+
+        @Override
+        public String label(int bucket) {
+            return String.format("%d-Q%d", bucket / 10, bucket % 10);
+        }
+    },
+    MONTH {
+        @Override
+        public int bucket(int date) {
+            return date / 100;
+        }
+
+        @Override
+        public String label(int bucket) {
+            return String.format("%d-%02d", bucket / 100, bucket % 100);
+        }
+    },
+    ISO_WEEK {
+        @Override
+        public int bucket(int date) {
+            try {
+                LocalDate day = LocalDate.of(date / 10000, date / 100 % 100, date % 100);
+                return day.get(IsoFields.WEEK_BASED_YEAR) * 100 + day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+            } catch (DateTimeException e) {
+                return date / 10000 * 100;
+            }
+        }
+
+        @Override
+        public String label(int bucket) {
+            return String.format("%d-W%02d", bucket / 100, bucket % 100);
+        }
+    };
+
+    /**
+     * @return The bucketing with the name, ignoring case and with - for _, e.g. iso-week.
+     * @throws IllegalArgumentException If there is none.
+     */
+    public static TimeBucket of(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
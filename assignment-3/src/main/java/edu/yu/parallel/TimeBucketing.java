@@ -0,0 +1,20 @@
+package edu.yu.parallel;
+
+/**
+ * Groups quotes into periods by their date, e.g. by year or month. Buckets
+ * are ints so that rollups don't box a key per quote; the standard ones are
+ * in {@link TimeBucket}, and others, e.g. fiscal years, can implement this.
+ */
+public interface TimeBucketing {
+    /**
+     * @param date The date of a quote as yyyymmdd. Month and day are 0 if the
+     *             date was not in yyyy-mm-dd form.
+     * @return The key of the bucket the date falls in.
+     */
+    int bucket(int date);
+
+    /**
+     * @return A readable name of the bucket with the key, e.g. 2013-Q1.
+     */
+    String label(int bucket);
+}
@@ -0,0 +1,35 @@
+package edu.yu.parallel;
+
+import java.util.List;
+
+/**
+ * TickerStats that also rank the K distinct tickers with the highest closes
+ * and volumes, for processors configured to track them. Each ticker is ranked
+ * by its best quote of the year; equal values rank in file order.
+ */
+public interface TopTickerStats extends TickerStats {
+    /**
+     * @return The number of tickers tracked, or 0 if the top K is not tracked.
+     */
+    int getK();
+
+    /**
+     * @return Up to K tickers with the highest closes, highest first.
+     */
+    List<String> getTopCloseTickers();
+
+    /**
+     * @return The closes of {@link #getTopCloseTickers()}, in the same order.
+     */
+    double[] getTopCloses();
+
+    /**
+     * @return Up to K tickers with the highest volumes, highest first.
+     */
+    List<String> getTopVolumeTickers();
+
+    /**
+     * @return The volumes of {@link #getTopVolumeTickers()}, in the same order.
+     */
+    long[] getTopVolumes();
+}
@@ -0,0 +1,28 @@
+package edu.yu.parallel;
+
+/**
+ * Approximate stats for the quotes of one year, from fixed-size sketches.
+ */
+public interface YearSketch {
+    /**
+     * @return The exact number of quotes in the year.
+     */
+    long getQuoteCount();
+
+    /**
+     * @return The estimated number of distinct tickers quoted in the year.
+     */
+    long getDistinctTickers();
+
+    /**
+     * @param percentile A number from 0 to 100.
+     * @return The estimated close below which the given percent of the year's closes fall.
+     */
+    double getClosePercentile(double percentile);
+
+    default String Summary() {
+        return String.format("Quotes: %d, Distinct Tickers: ~%d, Close p50/p95/p99: ~%.2f/%.2f/%.2f",
+                getQuoteCount(), getDistinctTickers(),
+                getClosePercentile(50), getClosePercentile(95), getClosePercentile(99));
+    }
+}
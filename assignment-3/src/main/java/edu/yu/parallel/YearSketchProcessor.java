@@ -0,0 +1,15 @@
+package edu.yu.parallel;
+
+import java.io.IOException;
+import java.util.Map;
+
+public interface YearSketchProcessor {
+    /**
+     * Processes a given CSV file and sketches the distinct tickers and closes of each year.
+     *
+     * @param filePath The path to the CSV file.
+     * @return A map where the key is the year, and the value is the YearSketch for that year.
+     * @throws ProcessingException If an error occurs while reading or processing the file.
+     */
+    Map<Integer, YearSketch> processFile(String filePath) throws IOException, ProcessingException;
+}
@@ -0,0 +1,257 @@
+package edu.yu.parallel.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.RunResult;
+import edu.yu.parallel.SnpDataGenerator;
+import edu.yu.parallel.TickerStats;
+
+/**
+ * Picks a processor for each file: the sequential scan when the file is too
+ * small for parallel workers to pay for themselves, the memory-mapped chunked
+ * engine for larger plain files, the streaming pipeline for larger compressed
+ * ones, and the multi-file processor for a directory or glob.
+ * <p>
+ * Splitting a file over n cores saves about (1 - 1/n) of its sequential parse
+ * time, and costs starting the workers and merging their partials. A one-time
+ * {@link Calibration} measures both on this machine, which gives the file
+ * size where parallel starts to win. The choice and the reason for it are
+ * recorded in {@link RunMetrics#getSelection()}.
+ */
+public class AdaptiveDataProcessor implements DataProcessor {
+    private final static Logger logger = LogManager.getLogger(AdaptiveDataProcessor.class);
+    /** Files smaller than this are never split, however the calibration turns out. */
+    public static final long MIN_PARALLEL_BYTES = 1L << 20;
+
+    /** Calibrations by number of workers, guarded by the class. */
+    private static final Map<Integer, Calibration> calibrations = new HashMap<>();
+
+    private final int cores;
+    private final long parallelThreshold;
+    private final DataProcessor sequential = new SequentialDataProcessor();
+    private final DataProcessor memoryMapped;
+    private final DataProcessor pipeline;
+    private final DataProcessor multiFile;
+
+    /**
+     * Uses the {@link WorkerSettings} saved for this machine in
+     * {@link WorkerSettings#defaultFile()}, or one worker per core, with the
+     * threshold from the calibration, which runs on first use.
+     */
+    public AdaptiveDataProcessor() {
+        this(WorkerSettings.defaultFile());
+    }
+
+    /**
+     * Uses the {@link WorkerSettings} saved for this machine in the file, or
+     * one worker per core, with the threshold from the calibration.
+     *
+     * @param tuningFile The file {@link WorkerTuner} saved its settings to,
+     *                   which need not exist.
+     */
+    public AdaptiveDataProcessor(Path tuningFile) {
+        this(WorkerSettings.forMachine(tuningFile), -1);
+    }
+
+    /**
+     * @param cores             The number of cores to use.
+     * @param parallelThreshold The file size from which to use parallel
+     *                          processors, or -1 to calibrate it.
+     */
+    public AdaptiveDataProcessor(int cores, long parallelThreshold) {
+        this(new WorkerSettings(cores, MemoryMappedDataProcessor.DEFAULT_CHUNK_SIZE, false, 0), parallelThreshold);
+    }
+
+    /**
+     * @param settings          The workers and chunk size of the parallel processors.
+     * @param parallelThreshold The file size from which to use parallel
+     *                          processors, or -1 to calibrate it.
+     */
+    public AdaptiveDataProcessor(WorkerSettings settings, long parallelThreshold) {
+        if (parallelThreshold < -1) {
+            throw new IllegalArgumentException("parallelThreshold must be -1 or not negative");
+        }
+        this.cores = settings.getWorkers();
+        this.parallelThreshold = parallelThreshold;
+        this.memoryMapped = settings.processor();
+        ParallelDataProcessor pipeline = new ParallelDataProcessor(cores, ParallelDataProcessor.DEFAULT_BLOCK_SIZE);
+        this.pipeline = settings.isPadded() ? pipeline.withPaddedAccumulators() : pipeline;
+        this.multiFile = new MultiFileDataProcessor(cores);
+    }
+
+    /**
+     * Parse speed and parallel overhead measured on this machine.
+     */
+    static final class Calibration {
+        private static final int SAMPLE_ROWS = 100_000;
+        private static final int PASSES = 5;
+
+        final double bytesPerNano;
+        final long overheadNanos;
+
+        Calibration(double bytesPerNano, long overheadNanos) {
+            this.bytesPerNano = bytesPerNano;
+            this.overheadNanos = overheadNanos;
+        }
+
+        /**
+         * Parses a generated sample a few times and keeps the best time, so
+         * the parse loop is compiled by the last passes, and times starting a
+         * pool of workers and merging one partial per worker.
+         */
+        static Calibration measure(int workers) throws IOException, ProcessingException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new SnpDataGenerator().rows(SAMPLE_ROWS).seed(1).write(out);
+            byte[] sample = out.toByteArray();
+
+            long parseNanos = Long.MAX_VALUE;
+            long overheadNanos = Long.MAX_VALUE;
+            for (int pass = 0; pass < PASSES; pass++) {
+                long startTime = System.nanoTime();
+                TickerStatsByYear partial = new TickerStatsByYear(new TickerDictionary());
+                new QuoteParser().parse(new ByteArrayInputStream(sample), true, partial);
+                parseNanos = Math.min(parseNanos, System.nanoTime() - startTime);
+
+                startTime = System.nanoTime();
+                ExecutorService executor = Executors.newFixedThreadPool(workers);
+                try {
+                    List<Future<TickerStatsByYear>> futures = new ArrayList<>(workers);
+                    for (int i = 0; i < workers; i++) {
+                        futures.add(executor.submit(() -> new TickerStatsByYear(partial.getDictionary())));
+                    }
+                    TickerStatsByYear merged = new TickerStatsByYear(partial.getDictionary());
+                    for (Future<TickerStatsByYear> future : futures) {
+                        merged.merge(future.get()).merge(partial);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ProcessingException("Interrupted while calibrating", e);
+                } catch (ExecutionException e) {
+                    throw new ProcessingException("Failed to calibrate", e.getCause());
+                } finally {
+                    executor.shutdownNow();
+                }
+                overheadNanos = Math.min(overheadNanos, System.nanoTime() - startTime);
+            }
+            return new Calibration((double) sample.length / Math.max(1, parseNanos), overheadNanos);
+        }
+
+        /**
+         * @return The file size where parsing on the given number of cores
+         *         starts to take less time than parsing on one.
+         */
+        long threshold(int cores) {
+            if (cores < 2) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(MIN_PARALLEL_BYTES, (long) (overheadNanos * bytesPerNano * cores / (cores - 1)));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f MB/s sequential, %.2f ms parallel overhead", bytesPerNano * 1000,
+                    overheadNanos / 1e6);
+        }
+    }
+
+    /**
+     * @return The calibration of this machine for the given number of workers,
+     *         measured on the first call with that number.
+     */
+    static synchronized Calibration calibration(int workers) throws IOException, ProcessingException {
+        Calibration measured = calibrations.get(workers);
+        if (measured == null) {
+            measured = Calibration.measure(workers);
+            logger.info("Calibrated for {} workers: {}", workers, measured);
+            calibrations.put(workers, measured);
+        }
+        return measured;
+    }
+
+    /**
+     * The processor picked for a file and why.
+     */
+    private static final class Selection {
+        final String name;
+        final DataProcessor processor;
+        final String reason;
+
+        Selection(String name, DataProcessor processor, String reason) {
+            this.name = name;
+            this.processor = processor;
+            this.reason = reason;
+        }
+    }
+
+    private Selection select(String filePath) throws IOException, ProcessingException {
+        if (MultiFileDataProcessor.isMultiFile(filePath)) {
+            return new Selection("multi-file", multiFile, "a directory or glob is analyzed as one data set");
+        }
+        if (cores == 1) {
+            return new Selection("sequential", sequential, "only one worker to use");
+        }
+        // The thresholds are sizes of plain text, which is what the workers parse
+        boolean compressed = CompressedInput.isCompressed(filePath);
+        long size = compressed ? CompressedInput.estimatePlainSize(filePath) : new File(filePath).length();
+        String bytes = String.format(compressed ? "about %,d bytes inflated" : "%,d bytes", size);
+        String threshold;
+        long minSize;
+        if (parallelThreshold >= 0) {
+            minSize = parallelThreshold;
+            threshold = String.format("the configured %,d-byte threshold", minSize);
+        } else {
+            Calibration measured = calibration(cores);
+            minSize = measured.threshold(cores);
+            threshold = String.format("the %,d-byte threshold for %d cores (%s)", minSize, cores, measured);
+        }
+        if (size < minSize) {
+            return new Selection("sequential", sequential,
+                    String.format("%s is below %s", bytes, threshold));
+        }
+        if (compressed) {
+            return new Selection("parallel", pipeline,
+                    String.format("%s reach %s, and compressed input can only be streamed", bytes, threshold));
+        }
+        return new Selection("memory-mapped", memoryMapped, String.format("%s reach %s", bytes, threshold));
+    }
+
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    /**
+     * @return The chosen processor's result, its metrics noting the choice.
+     */
+    @Override
+    public RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        Selection selection = select(filePath);
+        RunResult result = selection.processor.processFileWithMetrics(filePath);
+        return new RunResult(result.getStats(),
+                result.getMetrics().withSelection(selection.name, selection.reason));
+    }
+
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath, int fromYear, int toYear)
+            throws IOException, ProcessingException {
+        return select(filePath).processor.processFile(filePath, fromYear, toYear);
+    }
+}
@@ -0,0 +1,285 @@
+package edu.yu.parallel.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunResult;
+import edu.yu.parallel.TickerStats;
+import edu.yu.parallel.TopTickerStats;
+
+/**
+ * Decorator that stores the result of processFile in a binary sidecar file and
+ * returns it on later calls for the same input.
+ * <p>
+ * An input is fingerprinted by its absolute path, size and modification time,
+ * plus a CRC32C of its contents when hashContents is set. Hashing catches edits
+ * that keep the size and timestamp, but costs a full read of the file on every
+ * call, so it is off by default. Each path has one sidecar in the cache
+ * directory; it is rewritten when the fingerprint no longer matches.
+ * <p>
+ * Sidecars are touched on every hit, and once their total size exceeds the
+ * disk budget the least recently used ones are deleted.
+ * <p>
+ * A sidecar only holds the highs and counts, so results that rank top
+ * tickers ({@link TopTickerStats}) are returned without being stored.
+ */
+public class CachingDataProcessor implements DataProcessor {
+    private final static Logger logger = LogManager.getLogger(CachingDataProcessor.class);
+    public static final long DEFAULT_DISK_BUDGET = 64L * 1024 * 1024;
+    static final String SIDECAR_SUFFIX = ".snpstats";
+    private static final int MAGIC = 0x534e5032; // "SNP2"
+
+    private final DataProcessor delegate;
+    private final Path cacheDirectory;
+    private final long diskBudget;
+    private final boolean hashContents;
+
+    public CachingDataProcessor(DataProcessor delegate, String cacheDirectory) {
+        this(delegate, cacheDirectory, DEFAULT_DISK_BUDGET, false);
+    }
+
+    /**
+     * @param delegate       The processor used on a cache miss.
+     * @param cacheDirectory The directory that holds the sidecar files.
+     * @param diskBudget     The total number of bytes the sidecars may use.
+     * @param hashContents   True to include a hash of the file contents in the fingerprint.
+     */
+    public CachingDataProcessor(DataProcessor delegate, String cacheDirectory, long diskBudget, boolean hashContents) {
+        if (diskBudget < 0) {
+            throw new IllegalArgumentException("diskBudget must not be negative");
+        }
+        this.delegate = delegate;
+        this.cacheDirectory = Path.of(cacheDirectory);
+        this.diskBudget = diskBudget;
+        this.hashContents = hashContents;
+    }
+
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    /**
+     * A hit's metrics count the sidecar as read and no rows as parsed; a
+     * miss returns the delegate's metrics.
+     */
+    @Override
+    public RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        long readStart = System.nanoTime();
+        Fingerprint fingerprint = fingerprint(Path.of(filePath).toAbsolutePath());
+        Path sidecar = cacheDirectory.resolve(sidecarName(fingerprint.path) + SIDECAR_SUFFIX);
+
+        Map<Integer, TickerStats> cached = read(sidecar, fingerprint);
+        if (cached != null) {
+            logger.debug("Cache hit for {}", filePath);
+            touch(sidecar);
+            RunRecorder recorder = new RunRecorder(this, filePath);
+            recorder.read(Files.size(sidecar), System.nanoTime() - readStart);
+            return new RunResult(cached, recorder.finish());
+        }
+
+        logger.debug("Cache miss for {}", filePath);
+        RunResult result = delegate.processFileWithMetrics(filePath);
+        if (ranksTopTickers(result.getStats())) {
+            logger.debug("Not caching the top tickers of {}", filePath);
+            return result;
+        }
+        write(sidecar, fingerprint, result.getStats());
+        evict();
+        return result;
+    }
+
+    private static boolean ranksTopTickers(Map<Integer, TickerStats> result) {
+        for (TickerStats stats : result.values()) {
+            if (stats instanceof TopTickerStats && ((TopTickerStats) stats).getK() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Fingerprint {
+        final String path;
+        final long size;
+        final long modified;
+        final long contentHash;
+
+        Fingerprint(String path, long size, long modified, long contentHash) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.contentHash = contentHash;
+        }
+
+        boolean matches(String path, long size, long modified, long contentHash) {
+            return this.path.equals(path) && this.size == size && this.modified == modified
+                    && this.contentHash == contentHash;
+        }
+    }
+
+    private Fingerprint fingerprint(Path path) throws IOException {
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long contentHash = 0;
+        if (hashContents) {
+            CRC32C crc = new CRC32C();
+            byte[] block = new byte[1 << 16];
+            try (InputStream in = Files.newInputStream(path)) {
+                int read;
+                while ((read = in.read(block)) != -1) {
+                    crc.update(block, 0, read);
+                }
+            }
+            contentHash = crc.getValue();
+        }
+        return new Fingerprint(path.toString(), size, modified, contentHash);
+    }
+
+    static String sidecarName(String path) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(path.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return The cached stats, or null if there is no usable sidecar.
+     */
+    private static Map<Integer, TickerStats> read(Path sidecar, Fingerprint fingerprint) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            if (!fingerprint.matches(in.readUTF(), in.readLong(), in.readLong(), in.readLong())) {
+                return null;
+            }
+            int years = in.readInt();
+            Map<Integer, TickerStats> stats = new HashMap<>();
+            TickerDictionary dictionary = new TickerDictionary();
+            for (int i = 0; i < years; i++) {
+                int year = in.readInt();
+                int quoteCount = in.readInt();
+                String highestCloseTicker = readTicker(in);
+                double highestClose = in.readDouble();
+                String highestVolumeTicker = readTicker(in);
+                long highestVolume = in.readLong();
+                stats.put(year, new TickerStatsAccumulator(dictionary, highestCloseTicker, highestClose,
+                        highestVolumeTicker, highestVolume, quoteCount));
+            }
+            return stats;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cache file {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path sidecar, Fingerprint fingerprint, Map<Integer, TickerStats> stats) throws IOException {
+        Files.createDirectories(cacheDirectory);
+        // Write to a temporary file first so that readers never see a partial sidecar
+        Path temp = Files.createTempFile(cacheDirectory, "snpstats", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(fingerprint.path);
+                out.writeLong(fingerprint.size);
+                out.writeLong(fingerprint.modified);
+                out.writeLong(fingerprint.contentHash);
+                out.writeInt(stats.size());
+                for (Map.Entry<Integer, TickerStats> entry : stats.entrySet()) {
+                    TickerStats yearStats = entry.getValue();
+                    out.writeInt(entry.getKey());
+                    out.writeInt(yearStats.getQuoteCount());
+                    writeTicker(out, yearStats.getHighestCloseTicker());
+                    out.writeDouble(yearStats.getHighestClose());
+                    writeTicker(out, yearStats.getHighestVolumeTicker());
+                    out.writeLong(yearStats.getHighestVolume());
+                }
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a flag for whether there is a ticker, so that a missing one is
+     * read back as null rather than as a ticker named "null".
+     */
+    private static void writeTicker(DataOutputStream out, String ticker) throws IOException {
+        out.writeBoolean(ticker != null);
+        if (ticker != null) {
+            out.writeUTF(ticker);
+        }
+    }
+
+    private static String readTicker(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void touch(Path sidecar) {
+        try {
+            Files.setLastModifiedTime(sidecar, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.warn("Could not update access time of {}: {}", sidecar, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the least recently used sidecars until the rest fit in the budget.
+     */
+    private void evict() throws IOException {
+        List<Path> sidecars = new ArrayList<>();
+        Map<Path, Long> sizes = new HashMap<>();
+        Map<Path, Long> lastUsed = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDirectory, "*" + SIDECAR_SUFFIX)) {
+            for (Path entry : entries) {
+                long size = Files.size(entry);
+                sidecars.add(entry);
+                sizes.put(entry, size);
+                lastUsed.put(entry, Files.getLastModifiedTime(entry).toMillis());
+                total += size;
+            }
+        }
+        if (total <= diskBudget) {
+            return;
+        }
+        sidecars.sort((a, b) -> Long.compare(lastUsed.get(a), lastUsed.get(b)));
+        for (Path sidecar : sidecars) {
+            if (total <= diskBudget) {
+                break;
+            }
+            logger.debug("Evicting cache file {}", sidecar);
+            Files.deleteIfExists(sidecar);
+            total -= sizes.get(sidecar);
+        }
+    }
+}
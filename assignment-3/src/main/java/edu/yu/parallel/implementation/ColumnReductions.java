@@ -0,0 +1,91 @@
+package edu.yu.parallel.implementation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The reductions over primitive columns that TickerStats needs: where a run
+ * of quotes from one year ends, and the first row holding the highest close
+ * or volume of the run. The count is just the length of the run.
+ * <p>
+ * {@link #vector()} does them on SIMD lanes with the incubating Vector API,
+ * which is only there when the jar is built with the vector profile and the
+ * JVM is started with {@code --add-modules jdk.incubator.vector};
+ * {@link #scalar()} is the plain loop. {@link #best()} picks the vector one when it is available and the
+ * CPU has more than one lane for a long, unless the snp.vector system
+ * property is false. Both give the same results, including ties.
+ */
+public abstract class ColumnReductions {
+    private final static Logger logger = LogManager.getLogger(ColumnReductions.class);
+    public static final String VECTOR_PROPERTY = "snp.vector";
+
+    private static final ColumnReductions SCALAR = new ScalarColumnReductions();
+    private static final ColumnReductions VECTOR = loadVector();
+
+    ColumnReductions() {
+    }
+
+    /**
+     * @return The first index in values[from, to) of a value outside [low,
+     *         high), or to if there is none.
+     */
+    public abstract int firstOutside(int[] values, int from, int to, int low, int high);
+
+    /**
+     * @return The first index in values[from, to) of their maximum, or -1 if
+     *         none is above negative infinity. NaN is never the maximum.
+     */
+    public abstract int argMax(double[] values, int from, int to);
+
+    /**
+     * @return The first index in values[from, to) of their maximum, or -1 if
+     *         none is above Long.MIN_VALUE.
+     */
+    public abstract int argMax(long[] values, int from, int to);
+
+    public static ColumnReductions scalar() {
+        return SCALAR;
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /**
+     * @throws UnsupportedOperationException If the Vector API is not available.
+     */
+    public static ColumnReductions vector() {
+        if (VECTOR == null) {
+            throw new UnsupportedOperationException("The Vector API needs a build with -Pvector and --add-modules jdk.incubator.vector");
+        }
+        return VECTOR;
+    }
+
+    public static ColumnReductions best() {
+        return VECTOR != null && !"false".equals(System.getProperty(VECTOR_PROPERTY)) ? VECTOR : SCALAR;
+    }
+
+    /**
+     * Loads the vector reductions by name, so that this class links without
+     * the incubator module, and builds without the vector profile leave the
+     * class out.
+     */
+    private static ColumnReductions loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            logger.debug("jdk.incubator.vector is not loaded, column scans are scalar");
+            return null;
+        }
+        try {
+            return (ColumnReductions) Class.forName(ColumnReductions.class.getPackageName() + ".VectorColumnReductions")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            logger.debug("Vector column scans are not available: {}", e.toString());
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,231 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.RunResult;
+import edu.yu.parallel.TickerStats;
+
+/**
+ * Computes TickerStats by scanning the memory-mapped columns of a
+ * {@link ColumnarSnapshot} instead of parsing text.
+ * <p>
+ * processFile accepts either a snapshot or a CSV. For a CSV, the snapshot is
+ * kept next to it with the {@link ColumnarSnapshot#SUFFIX} suffix and is
+ * (re)built when it is missing or older than the CSV, so only the first
+ * analysis of a file pays for parsing it. Row ranges are scanned in parallel
+ * and merged in order, so results match {@link SequentialDataProcessor}.
+ * <p>
+ * A range is copied into arrays a block at a time and cut into runs of rows
+ * from the same year. Each run only needs its highest close and volume and
+ * its length, which {@link ColumnReductions} finds on SIMD lanes when the
+ * Vector API is available, so tickers are only looked up once per run.
+ */
+public class ColumnarDataProcessor implements DataProcessor {
+    private final static Logger logger = LogManager.getLogger(ColumnarDataProcessor.class);
+    // Keeps each mapped column slice of a task under 64 MB
+    private static final int MAX_ROWS_PER_TASK = 8 * 1024 * 1024;
+    private static final int BLOCK_ROWS = 1 << 16;
+    private static final int ROW_BYTES = Integer.BYTES + Integer.BYTES + Double.BYTES + Long.BYTES;
+
+    private final int parallelism;
+    private final ColumnReductions reductions;
+    private final int topK;
+
+    public ColumnarDataProcessor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ColumnarDataProcessor(int parallelism) {
+        this(parallelism, ColumnReductions.best());
+    }
+
+    /**
+     * @param reductions The scalar or vector reductions to scan the columns with.
+     */
+    public ColumnarDataProcessor(int parallelism, ColumnReductions reductions) {
+        this(parallelism, reductions, 0);
+    }
+
+    /**
+     * @param reductions The scalar or vector reductions to scan the columns with.
+     * @param topK       The number of top tickers by close and by volume to rank
+     *                   each year, see {@link edu.yu.parallel.TopTickerStats}, or
+     *                   0 for none. Ranking needs every row, so the columns are
+     *                   then scanned row by row instead of in runs.
+     */
+    public ColumnarDataProcessor(int parallelism, ColumnReductions reductions, int topK) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        this.parallelism = parallelism;
+        this.reductions = reductions;
+        this.topK = topK;
+    }
+
+    /**
+     * @return The snapshot for the file, converting the CSV first if needed.
+     */
+    public static Path snapshotFor(Path file) throws IOException, ProcessingException {
+        if (file.toString().endsWith(ColumnarSnapshot.SUFFIX)) {
+            return file;
+        }
+        Path snapshot = file.resolveSibling(file.getFileName() + ColumnarSnapshot.SUFFIX);
+        if (Files.exists(snapshot)) {
+            try (ColumnarSnapshot existing = ColumnarSnapshot.open(snapshot)) {
+                if (existing.isCurrent(file)) {
+                    return snapshot;
+                }
+            } catch (IOException e) {
+                logger.warn("Rebuilding unreadable snapshot {}: {}", snapshot, e.getMessage());
+            }
+        }
+        logger.info("Converting {} to {}", file, snapshot);
+        ColumnarSnapshot.convert(file, snapshot);
+        return snapshot;
+    }
+
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    /**
+     * Finding or building the snapshot counts as the run's read time; the
+     * column bytes each task scans count as read too.
+     */
+    @Override
+    public RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        RunRecorder recorder = new RunRecorder(this, filePath);
+        boolean completed = false;
+        long readStart = System.nanoTime();
+        Path snapshotPath;
+        try {
+            snapshotPath = snapshotFor(Path.of(filePath));
+        } finally {
+            recorder.read(0, System.nanoTime() - readStart);
+        }
+        try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(snapshotPath)) {
+            long rows = snapshot.getRows();
+            long rowsPerTask = Math.max(1, Math.min(MAX_ROWS_PER_TASK, (rows + parallelism - 1) / parallelism));
+            int tasks = (int) ((rows + rowsPerTask - 1) / rowsPerTask);
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, tasks)));
+            try {
+                // Map snapshot ticker ids to ids in the run's dictionary once, up front
+                TickerDictionary dictionary = new TickerDictionary();
+                String[] tickers = snapshot.getTickers();
+                int[] tickerIds = new int[tickers.length];
+                for (int i = 0; i < tickers.length; i++) {
+                    tickerIds[i] = dictionary.id(tickers[i]);
+                }
+
+                List<Future<TickerStatsByYear>> futures = new ArrayList<>(tasks);
+                for (long from = 0; from < rows; from += rowsPerTask) {
+                    long start = from;
+                    int count = (int) Math.min(rowsPerTask, rows - from);
+                    futures.add(executor.submit(() -> recordScan(recorder, snapshot, dictionary, tickerIds, start,
+                            count)));
+                }
+                TickerStatsByYear merged = new TickerStatsByYear(dictionary, topK);
+                for (Future<TickerStatsByYear> future : futures) {
+                    TickerStatsByYear partial = future.get();
+                    long mergeStart = System.nanoTime();
+                    merged.merge(partial);
+                    recorder.merged(System.nanoTime() - mergeStart);
+                }
+                Map<Integer, TickerStats> result = merged.toMap();
+                RunMetrics metrics = recorder.finish();
+                completed = true;
+                return new RunResult(result, metrics);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessingException("Interrupted while processing " + filePath, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new ProcessingException("Failed to process " + filePath, cause);
+            } finally {
+                executor.shutdownNow();
+            }
+        } finally {
+            if (!completed) {
+                recorder.abandon();
+            }
+        }
+    }
+
+    private TickerStatsByYear recordScan(RunRecorder recorder, ColumnarSnapshot snapshot, TickerDictionary dictionary,
+            int[] tickerIds, long from, int count) throws IOException {
+        long allocated = RunRecorder.allocatedBytes();
+        long scanStart = System.nanoTime();
+        ParseChunkEvent event = recorder.beginChunk();
+        TickerStatsByYear stats = scan(snapshot, dictionary, tickerIds, from, count);
+        recorder.scanned((long) count * ROW_BYTES);
+        recorder.parsed(event, (long) count * ROW_BYTES, count, System.nanoTime() - scanStart);
+        recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+        return stats;
+    }
+
+    private TickerStatsByYear scan(ColumnarSnapshot snapshot, TickerDictionary dictionary, int[] tickerIds,
+            long from, int count) throws IOException {
+        IntBuffer dates = snapshot.dates(from, count);
+        IntBuffer tickers = snapshot.tickerIds(from, count);
+        DoubleBuffer closes = snapshot.closes(from, count);
+        LongBuffer volumes = snapshot.volumes(from, count);
+
+        TickerStatsByYear stats = new TickerStatsByYear(dictionary, topK);
+        int blockRows = Math.min(count, BLOCK_ROWS);
+        int[] dateBlock = new int[blockRows];
+        double[] closeBlock = new double[blockRows];
+        long[] volumeBlock = new long[blockRows];
+        for (int block = 0; block < count; block += blockRows) {
+            int rows = Math.min(blockRows, count - block);
+            dates.get(block, dateBlock, 0, rows);
+            closes.get(block, closeBlock, 0, rows);
+            volumes.get(block, volumeBlock, 0, rows);
+            if (topK > 0) {
+                for (int i = 0; i < rows; i++) {
+                    stats.get(dateBlock[i] / 10000).accept(tickerIds[tickers.get(block + i)], closeBlock[i],
+                            volumeBlock[i]);
+                }
+                continue;
+            }
+            int run = 0;
+            while (run < rows) {
+                // Dates are yyyymmdd, so a year's dates are one range of ints
+                int year = dateBlock[run] / 10000;
+                int end = reductions.firstOutside(dateBlock, run + 1, rows, year * 10000, (year + 1) * 10000);
+                int closeAt = reductions.argMax(closeBlock, run, end);
+                int volumeAt = reductions.argMax(volumeBlock, run, end);
+                stats.get(year).acceptRun(closeAt < 0 ? -1 : tickerIds[tickers.get(block + closeAt)],
+                        closeAt < 0 ? Double.NEGATIVE_INFINITY : closeBlock[closeAt],
+                        volumeAt < 0 ? -1 : tickerIds[tickers.get(block + volumeAt)],
+                        volumeAt < 0 ? Long.MIN_VALUE : volumeBlock[volumeAt], end - run);
+                run = end;
+            }
+        }
+        return stats;
+    }
+}
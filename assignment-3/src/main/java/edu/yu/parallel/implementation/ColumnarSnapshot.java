@@ -0,0 +1,304 @@
+package edu.yu.parallel.implementation;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import edu.yu.parallel.ProcessingException;
+
+/**
+ * Columnar binary copy of a quote CSV. Once converted, the quotes can be
+ * scanned by memory-mapping the columns instead of parsing text.
+ * <p>
+ * Layout, little-endian:
+ * <pre>
+ * header      int magic, int version, long sourceSize, long sourceModified,
+ *             long rows, int tickerCount,
+ *             long datesOffset, long tickersOffset, long closesOffset, long volumesOffset
+ * dictionary  tickerCount x (short length, ASCII bytes)
+ * dates       rows x int, the date as yyyymmdd
+ * tickers     rows x int, index into the dictionary
+ * closes      rows x double
+ * volumes     rows x long
+ * </pre>
+ * Each column starts at a multiple of 8 bytes. Rows keep the order of the CSV.
+ */
+public class ColumnarSnapshot implements Closeable {
+    public static final String SUFFIX = ".snpcol";
+    private static final int MAGIC = 0x534e5043; // "SNPC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4 * 8;
+    private static final int COLUMN_BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long rows;
+    private final String[] tickers;
+    private final long datesOffset;
+    private final long tickersOffset;
+    private final long closesOffset;
+    private final long volumesOffset;
+
+    private ColumnarSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = read(channel, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a columnar quote snapshot");
+        }
+        sourceSize = header.getLong();
+        sourceModified = header.getLong();
+        rows = header.getLong();
+        int tickerCount = header.getInt();
+        datesOffset = header.getLong();
+        tickersOffset = header.getLong();
+        closesOffset = header.getLong();
+        volumesOffset = header.getLong();
+
+        ByteBuffer dictionary = read(channel, HEADER_SIZE, (int) (datesOffset - HEADER_SIZE));
+        tickers = new String[tickerCount];
+        byte[] name = new byte[Short.MAX_VALUE];
+        for (int i = 0; i < tickerCount; i++) {
+            int length = dictionary.getShort();
+            dictionary.get(name, 0, length);
+            tickers[i] = QuoteParser.ascii(name, 0, length);
+        }
+    }
+
+    public static ColumnarSnapshot open(Path snapshot) throws IOException {
+        FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ);
+        try {
+            return new ColumnarSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated columnar quote snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @return True if the snapshot was converted from the source file as it is now.
+     */
+    public boolean isCurrent(Path source) throws IOException {
+        return Files.size(source) == sourceSize && Files.getLastModifiedTime(source).toMillis() == sourceModified;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return The ticker symbols, indexed by the values of the tickers column.
+     */
+    public String[] getTickers() {
+        return tickers;
+    }
+
+    public IntBuffer dates(long fromRow, int count) throws IOException {
+        return map(datesOffset, Integer.BYTES, fromRow, count).asIntBuffer();
+    }
+
+    public IntBuffer tickerIds(long fromRow, int count) throws IOException {
+        return map(tickersOffset, Integer.BYTES, fromRow, count).asIntBuffer();
+    }
+
+    public DoubleBuffer closes(long fromRow, int count) throws IOException {
+        return map(closesOffset, Double.BYTES, fromRow, count).asDoubleBuffer();
+    }
+
+    public LongBuffer volumes(long fromRow, int count) throws IOException {
+        return map(volumesOffset, Long.BYTES, fromRow, count).asLongBuffer();
+    }
+
+    private ByteBuffer map(long columnOffset, int width, long fromRow, int count) throws IOException {
+        if (fromRow < 0 || count < 0 || fromRow + count > rows) {
+            throw new IndexOutOfBoundsException("Rows " + fromRow + "+" + count + " out of " + rows);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, columnOffset + fromRow * width, (long) count * width)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Converts a quote CSV into a snapshot. Each column is streamed to its own
+     * temporary file and the pieces are concatenated at the end, so memory use
+     * does not grow with the size of the CSV.
+     */
+    public static void convert(Path csv, Path snapshot) throws IOException, ProcessingException {
+        long sourceSize = Files.size(csv);
+        long sourceModified = Files.getLastModifiedTime(csv).toMillis();
+        Path directory = snapshot.toAbsolutePath().getParent();
+        Path[] columnFiles = new Path[4];
+        Path temp = null;
+        try {
+            for (int i = 0; i < columnFiles.length; i++) {
+                columnFiles[i] = Files.createTempFile(directory, "snpcol", ".tmp");
+            }
+            Converter converter = new Converter(columnFiles);
+            try (InputStream in = new FileInputStream(csv.toFile())) {
+                converter.parser.parse(in, true, converter);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                converter.close();
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer dictionary = converter.dictionary();
+            long datesOffset = align(HEADER_SIZE + dictionary.remaining());
+            long tickersOffset = align(datesOffset + converter.rows * Integer.BYTES);
+            long closesOffset = align(tickersOffset + converter.rows * Integer.BYTES);
+            long volumesOffset = align(closesOffset + converter.rows * Double.BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceModified)
+                    .putLong(converter.rows).putInt(converter.tickerCount)
+                    .putLong(datesOffset).putLong(tickersOffset).putLong(closesOffset).putLong(volumesOffset)
+                    .flip();
+
+            temp = Files.createTempFile(directory, "snpcol", ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                write(out, 0, header);
+                write(out, HEADER_SIZE, dictionary);
+                long[] offsets = { datesOffset, tickersOffset, closesOffset, volumesOffset };
+                for (int i = 0; i < columnFiles.length; i++) {
+                    try (FileChannel column = FileChannel.open(columnFiles[i], StandardOpenOption.READ)) {
+                        long size = column.size();
+                        for (long done = 0; done < size;) {
+                            done += column.transferTo(done, size - done, out.position(offsets[i] + done));
+                        }
+                    }
+                }
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+            for (Path columnFile : columnFiles) {
+                if (columnFile != null) {
+                    Files.deleteIfExists(columnFile);
+                }
+            }
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static void write(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * QuoteSink that appends each quote to the column files and assigns ticker ids.
+     */
+    private static final class Converter implements QuoteParser.QuoteSink {
+        final QuoteParser parser = new QuoteParser();
+        final FileChannel[] columns;
+        final ByteBuffer[] buffers;
+        long rows;
+        int tickerCount;
+
+        final TickerDictionary tickers = new TickerDictionary();
+
+        Converter(Path[] columnFiles) throws IOException {
+            columns = new FileChannel[columnFiles.length];
+            buffers = new ByteBuffer[columnFiles.length];
+            for (int i = 0; i < columnFiles.length; i++) {
+                columns[i] = FileChannel.open(columnFiles[i], StandardOpenOption.WRITE);
+                buffers[i] = ByteBuffer.allocate(COLUMN_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        @Override
+        public void quote(int year, double close, long volume, byte[] line, int tickerStart, int tickerLength) {
+            try {
+                room(0, Integer.BYTES).putInt(parser.date());
+                room(1, Integer.BYTES).putInt(tickers.id(line, tickerStart, tickerLength));
+                room(2, Double.BYTES).putDouble(close);
+                room(3, Long.BYTES).putLong(volume);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        private ByteBuffer room(int column, int bytes) throws IOException {
+            if (buffers[column].remaining() < bytes) {
+                flush(column);
+            }
+            return buffers[column];
+        }
+
+        private void flush(int column) throws IOException {
+            ByteBuffer buffer = buffers[column].flip();
+            while (buffer.hasRemaining()) {
+                columns[column].write(buffer);
+            }
+            buffer.clear();
+        }
+
+        ByteBuffer dictionary() {
+            tickerCount = tickers.size();
+            byte[][] names = new byte[tickerCount][];
+            int size = 0;
+            for (int id = 0; id < tickerCount; id++) {
+                names[id] = tickers.name(id).getBytes(StandardCharsets.ISO_8859_1);
+                size += Short.BYTES + names[id].length;
+            }
+            ByteBuffer dictionary = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            for (byte[] name : names) {
+                dictionary.putShort((short) name.length).put(name);
+            }
+            return dictionary.flip();
+        }
+
+        void close() throws IOException {
+            IOException failure = null;
+            for (int i = 0; i < columns.length; i++) {
+                try {
+                    flush(i);
+                } catch (IOException e) {
+                    failure = failure == null ? e : failure;
+                }
+                // Close every column, also after a failed flush
+                try {
+                    columns[i].close();
+                } catch (IOException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
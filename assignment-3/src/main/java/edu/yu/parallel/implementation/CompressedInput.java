@@ -0,0 +1,129 @@
+package edu.yu.parallel.implementation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import edu.yu.parallel.ProcessingException;
+
+/**
+ * Opens quote files whether or not they are compressed, telling the format by
+ * its magic bytes rather than by the file name. Gzip files are inflated by a
+ * {@link ParallelGzipInputStream}. Zstandard would need a native or
+ * third-party decoder, which this project does not depend on, so zstd files
+ * are recognized and rejected with a clear message.
+ * <p>
+ * Like the processors that read through it, this uses only java.io.
+ */
+public final class CompressedInput {
+    /** Plain bytes inflated from the start of a file to estimate its compression ratio. */
+    static final int SAMPLE_BYTES = 1 << 20;
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    public enum Format {
+        PLAIN, GZIP, ZSTD
+    }
+
+    public static Format format(String filePath) throws IOException {
+        byte[] magic = new byte[4];
+        int n = 0;
+        try (InputStream in = new FileInputStream(filePath)) {
+            for (int read; n < magic.length && (read = in.read(magic, n, magic.length - n)) > 0;) {
+                n += read;
+            }
+        }
+        if (n >= 2 && magic[0] == 0x1f && magic[1] == (byte) 0x8b) {
+            return Format.GZIP;
+        }
+        if (n == 4 && magic[0] == 0x28 && magic[1] == (byte) 0xb5 && magic[2] == 0x2f && magic[3] == (byte) 0xfd) {
+            return Format.ZSTD;
+        }
+        return Format.PLAIN;
+    }
+
+    public static boolean isCompressed(String filePath) throws IOException {
+        return format(filePath) != Format.PLAIN;
+    }
+
+    /**
+     * @return The size of the file's plain text: the file size if it is not
+     *         gzip, else the file size scaled by the ratio of a sample inflated
+     *         from its start, which is exact for files shorter than the sample.
+     */
+    public static long estimatePlainSize(String filePath) throws IOException {
+        long size = new File(filePath).length();
+        if (format(filePath) != Format.GZIP) {
+            return size;
+        }
+        try (CountingInputStream file = new CountingInputStream(new FileInputStream(filePath));
+                InputStream in = new GZIPInputStream(file)) {
+            byte[] buf = new byte[8192];
+            long plain = 0;
+            for (int read; plain < SAMPLE_BYTES; plain += read) {
+                if ((read = in.read(buf)) < 0) {
+                    return plain;
+                }
+            }
+            // The count is ahead of the inflater by at most its input buffer
+            return (long) (size * ((double) plain / Math.max(1, file.count)));
+        }
+    }
+
+    /**
+     * @return The plain text of the file, inflated on up to as many threads
+     *         as there are cores if it is compressed.
+     * @throws ProcessingException If the file is compressed in a format that is not supported.
+     */
+    public static InputStream open(String filePath) throws IOException, ProcessingException {
+        switch (format(filePath)) {
+            case GZIP:
+                return new ParallelGzipInputStream(filePath, Runtime.getRuntime().availableProcessors());
+            case ZSTD:
+                throw new ProcessingException("zstd-compressed input is not supported, decompress it first: "
+                        + filePath);
+            default:
+                return new FileInputStream(filePath);
+        }
+    }
+}
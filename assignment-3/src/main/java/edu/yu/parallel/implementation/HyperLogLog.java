@@ -0,0 +1,125 @@
+package edu.yu.parallel.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog estimate of the number of distinct values added to it, in
+ * 2^precision one-byte registers. The standard error is about
+ * 1.04 / sqrt(2^precision), so 1.6% with the default precision of 12.
+ * <p>
+ * Sketches with the same precision merge by taking the larger register, which
+ * is associative and commutative, so workers can each fill their own.
+ */
+public final class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Adds the value in bytes[start, start + length).
+     */
+    public void add(byte[] bytes, int start, int length) {
+        add(hash(bytes, start, length));
+    }
+
+    /**
+     * Adds a value by its 64-bit hash, which must be well mixed.
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // The marker bit bounds the rank when the remaining bits are all 0
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * @return The estimated number of distinct values added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate while many registers are empty
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * @return this
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + precision + " and "
+                    + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        out.write(registers);
+    }
+
+    public static HyperLogLog readFrom(DataInput in) throws IOException {
+        int precision = in.readByte();
+        if (precision < 4 || precision > 18) {
+            throw new IOException("Bad HyperLogLog precision " + precision);
+        }
+        HyperLogLog sketch = new HyperLogLog(precision);
+        in.readFully(sketch.registers);
+        return sketch;
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer, which spreads the
+     * short ASCII tickers over all the bits.
+     */
+    static long hash(byte[] bytes, int start, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < start + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
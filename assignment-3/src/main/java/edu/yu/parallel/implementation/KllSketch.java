@@ -0,0 +1,216 @@
+package edu.yu.parallel.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch of doubles. Values are kept in levels; an item at level
+ * h stands for 2^h values. When a level outgrows its capacity it is sorted and
+ * every other item, starting at a random offset, is promoted to the next level
+ * and the rest are dropped. Capacities shrink by 2/3 per level below the top,
+ * so the sketch holds O(k) items and ranks are off by about 1.7 / k of the
+ * count, about 1% with the default k of 200.
+ * <p>
+ * Sketches merge by concatenating their levels and compacting, so workers can
+ * each fill their own and combine them in any order.
+ */
+public final class KllSketch {
+    public static final int DEFAULT_K = 200;
+    private static final int MIN_CAPACITY = 8;
+
+    private final int k;
+    private double[][] levels = new double[0][];
+    private int[] sizes = new int[0];
+    private int bottomCapacity;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    // xorshift state for the compaction offsets
+    private long random = 0x9E3779B97F4A7C15L;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY);
+        }
+        this.k = k;
+        ensureLevel(0);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        append(0, value);
+        if (sizes[0] >= bottomCapacity) {
+            compress();
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)));
+    }
+
+    private void ensureLevel(int level) {
+        if (level >= levels.length) {
+            int from = levels.length;
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int i = from; i <= level; i++) {
+                levels[i] = new double[MIN_CAPACITY];
+            }
+            bottomCapacity = capacity(0);
+        }
+    }
+
+    private void append(int level, double value) {
+        ensureLevel(level);
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], 2 * levels[level].length);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    /**
+     * Compacts every level that is over its capacity, from the bottom up.
+     */
+    private void compress() {
+        for (int level = 0; level < levels.length; level++) {
+            if (sizes[level] >= capacity(level)) {
+                compact(level);
+            }
+        }
+    }
+
+    private void compact(int level) {
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        // An odd item out stays behind
+        int kept = size % 2;
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        int offset = (int) (random & 1);
+        for (int i = kept + offset; i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+        sizes[level] = kept;
+    }
+
+    /**
+     * @param fraction A number from 0 to 1.
+     * @return The value with about that fraction of the values below it, or
+     *         NaN if the sketch is empty.
+     */
+    public double quantile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        Integer[] order = new Integer[total];
+        int n = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[n] = levels[level][i];
+                weights[n] = 1L << level;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        long weight = 0;
+        for (int i : order) {
+            weight += weights[i];
+        }
+        double target = fraction * weight;
+        long seen = 0;
+        for (int i : order) {
+            seen += weights[i];
+            if (seen >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return this
+     */
+    public KllSketch merge(KllSketch other) {
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+        return this;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(levels.length);
+        for (int level = 0; level < levels.length; level++) {
+            out.writeInt(sizes[level]);
+            for (int i = 0; i < sizes[level]; i++) {
+                out.writeDouble(levels[level][i]);
+            }
+        }
+    }
+
+    public static KllSketch readFrom(DataInput in) throws IOException {
+        int k = in.readInt();
+        if (k < MIN_CAPACITY) {
+            throw new IOException("Bad KLL sketch size " + k);
+        }
+        KllSketch sketch = new KllSketch(k);
+        sketch.count = in.readLong();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        int levels = in.readInt();
+        for (int level = 0; level < levels; level++) {
+            int size = in.readInt();
+            sketch.ensureLevel(level);
+            for (int i = 0; i < size; i++) {
+                sketch.append(level, in.readDouble());
+            }
+        }
+        return sketch;
+    }
+}
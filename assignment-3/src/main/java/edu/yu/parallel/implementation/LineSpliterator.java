@@ -0,0 +1,139 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a byte range of a file that yields memory-mapped slices of
+ * whole lines, each of about batchSize bytes. Slices are cut from mapped
+ * windows of up to 64 MB, so small batches don't cost a mapping each.
+ * <p>
+ * Files.lines splits a file at its midpoint only when it is under 2 GB;
+ * otherwise it falls back to an iterator-based spliterator that doesn't know
+ * how much input is left and splits off ever larger arrays of lines it has
+ * already read. This one always splits at the byte midpoint of its range, moved forward to the next line
+ * start. Both halves are then about the same size and can be split again, so
+ * fork/join work stealing keeps all cores busy. estimateSize is the number of
+ * slices left, computed from the bytes left; it is not exact because slices end
+ * at line boundaries, so SIZED is not reported.
+ */
+public class LineSpliterator implements Spliterator<ByteBuffer> {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int batchSize;
+    private long position;
+    private final long end;
+    // The mapped part of the file that slices are cut from
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+
+    /**
+     * @param channel   The file to read, which must stay open while the spliterator is used.
+     * @param start     The offset of the first byte, which must start a line.
+     * @param end       The offset after the last byte.
+     * @param batchSize The number of bytes per slice, rounded to line boundaries.
+     */
+    public LineSpliterator(FileChannel channel, long start, long end, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return The offset of the next byte the spliterator will read.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+        if (position >= end) {
+            return false;
+        }
+        try {
+            if (window == null || position >= windowEnd) {
+                map(position, Math.max(WINDOW_SIZE, batchSize));
+            }
+            while (true) {
+                int from = (int) (position - windowStart);
+                int limit = (int) (Math.min(position + batchSize, windowEnd) - windowStart);
+                int cut = windowEnd == end && limit == windowEnd - windowStart ? limit : lineEnd(from, limit);
+                if (cut > from) {
+                    position = windowStart + cut;
+                    action.accept(window.slice(from, cut - from));
+                    return true;
+                }
+                // A single line longer than the rest of the window
+                map(position, Math.min(2 * (windowEnd - windowStart), Integer.MAX_VALUE));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(long start, long size) throws IOException {
+        windowStart = start;
+        windowEnd = Math.min(end, start + size);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+    }
+
+    /**
+     * @return The end of the last line that ends before limit, else of the
+     *         first line that ends after it in the window, else from.
+     */
+    private int lineEnd(int from, int limit) {
+        for (int i = limit - 1; i >= from; i--) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        int size = (int) (windowEnd - windowStart);
+        for (int i = limit; i < size; i++) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return windowEnd == end ? size : from;
+    }
+
+    @Override
+    public Spliterator<ByteBuffer> trySplit() {
+        long remaining = end - position;
+        if (remaining <= batchSize) {
+            return null;
+        }
+        try {
+            long split = MemoryMappedDataProcessor.nextLineStart(channel, position + remaining / 2, end);
+            if (split <= position || split >= end) {
+                return null;
+            }
+            LineSpliterator prefix = new LineSpliterator(channel, position, split, batchSize);
+            position = split;
+            return prefix;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return (end - position + batchSize - 1) / batchSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
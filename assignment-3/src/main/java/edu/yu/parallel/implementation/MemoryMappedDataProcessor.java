@@ -0,0 +1,263 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.RunResult;
+import edu.yu.parallel.TickerStats;
+
+/**
+ * Memory-maps the file, splits it into newline-aligned chunks and parses each
+ * chunk on its own worker. The per-chunk partials are merged in file order so
+ * the result is identical to {@link SequentialDataProcessor}.
+ * <p>
+ * Year range queries use a {@link YearIndex} kept next to the file to skip
+ * the chunks that hold no quotes from the requested years.
+ */
+public class MemoryMappedDataProcessor implements DataProcessor {
+    public static final long DEFAULT_CHUNK_SIZE = 32L * 1024 * 1024;
+    private static final int SCAN_SIZE = 4096;
+
+    private final int parallelism;
+    private final long chunkSize;
+    private final int topK;
+    private final boolean padded;
+
+    public MemoryMappedDataProcessor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param parallelism The number of worker threads.
+     * @param chunkSize   The maximum number of bytes handed to a worker at once.
+     */
+    public MemoryMappedDataProcessor(int parallelism, long chunkSize) {
+        this(parallelism, chunkSize, 0);
+    }
+
+    /**
+     * @param parallelism The number of worker threads.
+     * @param chunkSize   The maximum number of bytes handed to a worker at once.
+     * @param topK        The number of top tickers by close and by volume to rank
+     *                    each year, see {@link edu.yu.parallel.TopTickerStats}, or 0 for none.
+     */
+    public MemoryMappedDataProcessor(int parallelism, long chunkSize, int topK) {
+        this(parallelism, chunkSize, topK, false);
+    }
+
+    private MemoryMappedDataProcessor(int parallelism, long chunkSize, int topK, boolean padded) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (chunkSize < 1 || chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chunkSize must be between 1 and " + Integer.MAX_VALUE);
+        }
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.topK = topK;
+        this.padded = padded;
+    }
+
+    /**
+     * Makes a copy of this processor whose workers pad their accumulators to
+     * their own cache lines, see {@link PaddedTickerStatsAccumulator}.
+     */
+    public MemoryMappedDataProcessor withPaddedAccumulators() {
+        return new MemoryMappedDataProcessor(parallelism, chunkSize, topK, true);
+    }
+
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    @Override
+    public RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        if (CompressedInput.isCompressed(filePath)) {
+            return processCompressed(filePath);
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<long[]> ranges = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                ranges.add(new long[] { bounds[i], bounds[i + 1] });
+            }
+            return processRanges(filePath, channel, ranges, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Uses the file's {@link YearIndex}, building it on first use, to parse
+     * only the parts of the file that hold quotes from the requested years.
+     */
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath, int fromYear, int toYear)
+            throws IOException, ProcessingException {
+        if (CompressedInput.isCompressed(filePath)) {
+            return DataProcessor.super.processFile(filePath, fromYear, toYear);
+        }
+        YearIndex index = YearIndex.forFile(Path.of(filePath));
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            return processRanges(filePath, channel, index.ranges(fromYear, toYear, chunkSize), fromYear, toYear)
+                    .getStats();
+        }
+    }
+
+    /**
+     * A compressed file can't be mapped and split, so it goes through the
+     * stream-based pipeline.
+     */
+    private RunResult processCompressed(String filePath) throws IOException, ProcessingException {
+        ParallelDataProcessor delegate = new ParallelDataProcessor(parallelism,
+                ParallelDataProcessor.DEFAULT_BLOCK_SIZE).withTopK(topK);
+        if (padded) {
+            delegate = delegate.withPaddedAccumulators();
+        }
+        return delegate.processFileWithMetrics(filePath);
+    }
+
+    /**
+     * Parses each newline-aligned range on a worker, keeping only quotes from
+     * fromYear to toYear, and merges the partials in range order.
+     */
+    private RunResult processRanges(String filePath, FileChannel channel, List<long[]> ranges,
+            int fromYear, int toYear) throws IOException, ProcessingException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, ranges.size())));
+        RunRecorder recorder = new RunRecorder(this, filePath);
+        boolean completed = false;
+        try {
+            TickerDictionary dictionary = new TickerDictionary();
+            List<Future<TickerStatsByYear>> futures = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                futures.add(executor.submit(
+                        () -> recordChunk(recorder, dictionary, channel, range[0], range[1], fromYear, toYear)));
+            }
+
+            // Merge in chunk order so that ties resolve as in a sequential scan
+            long allocated = RunRecorder.allocatedBytes();
+            TickerStatsByYear merged = new TickerStatsByYear(dictionary, topK);
+            for (Future<TickerStatsByYear> future : futures) {
+                TickerStatsByYear partial = future.get();
+                long mergeStart = System.nanoTime();
+                merged.merge(partial);
+                recorder.merged(System.nanoTime() - mergeStart);
+            }
+            Map<Integer, TickerStats> result = merged.toMap();
+            recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+            RunMetrics metrics = recorder.finish();
+            completed = true;
+            return new RunResult(result, metrics);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while processing " + filePath, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ProcessingException) {
+                throw (ProcessingException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new ProcessingException("Failed to process " + filePath, cause);
+        } finally {
+            executor.shutdownNow();
+            if (!completed) {
+                recorder.abandon();
+            }
+        }
+    }
+
+    private TickerStatsByYear recordChunk(RunRecorder recorder, TickerDictionary dictionary, FileChannel channel,
+            long start, long end, int fromYear, int toYear) throws IOException, ProcessingException {
+        long allocated = RunRecorder.allocatedBytes();
+        long parseStart = System.nanoTime();
+        ParseChunkEvent event = recorder.beginChunk();
+        TickerStatsByYear stats = parseChunk(new TickerStatsByYear(dictionary, topK, padded), channel, start, end,
+                fromYear, toYear);
+        recorder.scanned(end - start);
+        recorder.parsed(event, end - start, stats.getQuoteCount(), System.nanoTime() - parseStart);
+        recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+        return stats;
+    }
+
+    /**
+     * Splits the file into ranges of roughly chunkSize bytes, each starting at
+     * the beginning of a line.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long step = Math.min(chunkSize, Math.max(1, (size + parallelism - 1) / parallelism));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = 0;
+        while (position + step < size) {
+            position = nextLineStart(channel, position + step, size);
+            if (position >= size) {
+                break;
+            }
+            bounds.add(position);
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return The offset of the first line that starts at or after position.
+     */
+    static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+        long offset = position - 1;
+        while (offset < size) {
+            scan.clear();
+            int read = channel.read(scan, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static TickerStatsByYear parseChunk(TickerStatsByYear stats, FileChannel channel, long start, long end,
+            int fromYear, int toYear) throws IOException, ProcessingException {
+        QuoteParser.QuoteSink sink = stats;
+        if (fromYear != Integer.MIN_VALUE || toYear != Integer.MAX_VALUE) {
+            sink = (year, close, volume, line, tickerStart, tickerLength) -> {
+                if (year >= fromYear && year <= toYear) {
+                    stats.quote(year, close, volume, line, tickerStart, tickerLength);
+                }
+            };
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int blockSize = (int) Math.min(QuoteParser.DEFAULT_BLOCK_SIZE, Math.max(end - start, 1));
+        new QuoteParser(blockSize).parse(new ByteBufferInputStream(buffer), start == 0, sink);
+        return stats;
+    }
+}
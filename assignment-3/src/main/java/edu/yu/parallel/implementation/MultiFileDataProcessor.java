@@ -0,0 +1,195 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.RunResult;
+import edu.yu.parallel.TickerStats;
+
+/**
+ * Processes many quote files as one data set. The path passed to processFile
+ * is either a directory, in which case every *.csv and *.csv.gz file directly in it is
+ * read, or a glob such as data/2019-*.csv or data/**.csv.
+ * <p>
+ * Files are streamed through a {@link QuoteParser} on a bounded pool of
+ * workers, each reusing its own parser buffer, so many small files are parsed
+ * concurrently instead of one open/parse cycle after another. Per-file stats
+ * are merged in path order, so the result is the same as processing the files
+ * concatenated in that order.
+ */
+public class MultiFileDataProcessor implements DataProcessor {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final int parallelism;
+    private final int topK;
+    private final ThreadLocal<QuoteParser> parsers = ThreadLocal.withInitial(() -> new QuoteParser(BLOCK_SIZE));
+
+    public MultiFileDataProcessor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism The maximum number of files read at the same time.
+     */
+    public MultiFileDataProcessor(int parallelism) {
+        this(parallelism, 0);
+    }
+
+    /**
+     * @param parallelism The maximum number of files read at the same time.
+     * @param topK        The number of top tickers by close and by volume to rank
+     *                    each year, see {@link edu.yu.parallel.TopTickerStats}, or 0 for none.
+     */
+    public MultiFileDataProcessor(int parallelism, int topK) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        this.parallelism = parallelism;
+        this.topK = topK;
+    }
+
+    /**
+     * @return True if the path names a directory or contains glob characters.
+     */
+    public static boolean isMultiFile(String path) {
+        return isGlob(path) || Files.isDirectory(Path.of(path));
+    }
+
+    private static boolean isGlob(String path) {
+        for (char c : "*?[{".toCharArray()) {
+            if (path.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The files the path refers to, sorted by path.
+     */
+    public static List<Path> listFiles(String path) throws IOException {
+        Path base;
+        PathMatcher matcher;
+        int depth;
+        if (isGlob(path)) {
+            // Walk from the deepest directory that has no glob characters in it
+            int firstGlob = path.length();
+            for (char c : "*?[{".toCharArray()) {
+                int index = path.indexOf(c);
+                if (index >= 0) {
+                    firstGlob = Math.min(firstGlob, index);
+                }
+            }
+            int separator = path.lastIndexOf('/', firstGlob);
+            base = Path.of(separator < 0 ? "." : path.substring(0, separator + 1));
+            String pattern = separator < 0 ? path : path.substring(separator + 1);
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            depth = pattern.contains("**") || pattern.contains("/") ? Integer.MAX_VALUE : 1;
+        } else {
+            base = Path.of(path);
+            matcher = FileSystems.getDefault().getPathMatcher("glob:*.{csv,csv.gz}");
+            depth = 1;
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.walk(base, depth, FileVisitOption.FOLLOW_LINKS)) {
+            entries.filter(Files::isRegularFile)
+                    .filter(file -> matcher.matches(base.relativize(file)))
+                    .sorted()
+                    .forEach(files::add);
+        }
+        return files;
+    }
+
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    @Override
+    public RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        List<Path> files = listFiles(filePath);
+        if (files.isEmpty()) {
+            throw new ProcessingException("No quote files match " + filePath);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, files.size()));
+        RunRecorder recorder = new RunRecorder(this, filePath);
+        boolean completed = false;
+        try {
+            TickerDictionary dictionary = new TickerDictionary();
+            List<Future<TickerStatsByYear>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(executor.submit(() -> parse(recorder, dictionary, file)));
+            }
+            TickerStatsByYear merged = new TickerStatsByYear(dictionary, topK);
+            for (Future<TickerStatsByYear> future : futures) {
+                TickerStatsByYear partial = future.get();
+                long mergeStart = System.nanoTime();
+                merged.merge(partial);
+                recorder.merged(System.nanoTime() - mergeStart);
+            }
+            Map<Integer, TickerStats> result = merged.toMap();
+            RunMetrics metrics = recorder.finish();
+            completed = true;
+            return new RunResult(result, metrics);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while processing " + filePath, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ProcessingException) {
+                throw (ProcessingException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new ProcessingException("Failed to process " + filePath, cause);
+        } finally {
+            executor.shutdownNow();
+            if (!completed) {
+                recorder.abandon();
+            }
+        }
+    }
+
+    /**
+     * Parses one file; its size on disk counts as the bytes read.
+     */
+    private TickerStatsByYear parse(RunRecorder recorder, TickerDictionary dictionary, Path file)
+            throws IOException, ProcessingException {
+        long allocated = RunRecorder.allocatedBytes();
+        long parseStart = System.nanoTime();
+        ParseChunkEvent event = recorder.beginChunk();
+        TickerStatsByYear stats = new TickerStatsByYear(dictionary, topK);
+        try (InputStream in = CompressedInput.open(file.toString())) {
+            parsers.get().parse(in, true, stats);
+        } catch (ProcessingException e) {
+            throw new ProcessingException(file + ": " + e.getMessage(), e);
+        }
+        long bytes = Files.size(file);
+        recorder.scanned(bytes);
+        recorder.parsed(event, bytes, stats.getQuoteCount(), System.nanoTime() - parseStart);
+        recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+        return stats;
+    }
+}
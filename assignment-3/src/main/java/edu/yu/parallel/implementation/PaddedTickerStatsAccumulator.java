@@ -0,0 +1,24 @@
+package edu.yu.parallel.implementation;
+
+/**
+ * Accumulator with two cache lines of padding on either side of the fields
+ * it writes, for workers that write their accumulators on every row. Each
+ * worker's accumulators are usually allocated in its own TLAB, but the first
+ * and last ones in a TLAB can share a cache line with another thread's
+ * objects, and the two cores then keep taking the line from each other.
+ * <p>
+ * The fields are laid out superclass first: those of
+ * {@link TickerStatsAccumulator}, which this leaves unused, then the lines of
+ * {@link TickerStatsAccumulatorPadding}, the highs and the count in
+ * {@link PaddedTickerStatsFields}, and last the lines declared here. Two lines
+ * rather than one because the adjacent-line prefetcher fetches lines in
+ * pairs. Plain accumulators carry none of this.
+ */
+final class PaddedTickerStatsAccumulator extends PaddedTickerStatsFields {
+    long q00, q01, q02, q03, q04, q05, q06, q07;
+    long q10, q11, q12, q13, q14, q15, q16, q17;
+
+    PaddedTickerStatsAccumulator(TickerDictionary dictionary, int k) {
+        super(dictionary, k);
+    }
+}
@@ -0,0 +1,64 @@
+package edu.yu.parallel.implementation;
+
+/**
+ * The highs and the count of a {@link PaddedTickerStatsAccumulator}, kept in
+ * fields of its own between two blocks of padding instead of in the fields
+ * of {@link TickerStatsAccumulator}, which it leaves unused.
+ */
+abstract class PaddedTickerStatsFields extends TickerStatsAccumulatorPadding {
+    private int highestCloseTicker = NO_TICKER;
+    private double highestClose = Double.NEGATIVE_INFINITY;
+    private int highestVolumeTicker = NO_TICKER;
+    private long highestVolume = Long.MIN_VALUE;
+    private int quoteCount;
+
+    PaddedTickerStatsFields(TickerDictionary dictionary, int k) {
+        super(dictionary, k);
+    }
+
+    @Override
+    void raiseClose(int tickerId, double close) {
+        if (close > highestClose) {
+            highestClose = close;
+            highestCloseTicker = tickerId;
+        }
+    }
+
+    @Override
+    void raiseVolume(int tickerId, long volume) {
+        if (volume > highestVolume) {
+            highestVolume = volume;
+            highestVolumeTicker = tickerId;
+        }
+    }
+
+    @Override
+    void count(int quotes) {
+        quoteCount += quotes;
+    }
+
+    @Override
+    int highestCloseTickerId() {
+        return highestCloseTicker;
+    }
+
+    @Override
+    int highestVolumeTickerId() {
+        return highestVolumeTicker;
+    }
+
+    @Override
+    public double getHighestClose() {
+        return highestClose;
+    }
+
+    @Override
+    public long getHighestVolume() {
+        return highestVolume;
+    }
+
+    @Override
+    public int getQuoteCount() {
+        return quoteCount;
+    }
+}
@@ -1,19 +1,504 @@
 package edu.yu.parallel.implementation;
 
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import edu.yu.parallel.DataProcessor;
 import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunMetrics;
 import edu.yu.parallel.TickerStats;
 
+/**
+ * Three-stage pipeline: a reader thread fills blocks of the file, a pool of
+ * parse workers turns each block into a partial TickerStatsByYear, and the
+ * calling thread merges the partials in block order.
+ * <p>
+ * The reader and the workers are connected by two bounded queues over a fixed
+ * set of recycled buffers: the reader takes a free buffer, fills it up to the
+ * last complete line, and queues it; a worker parses it and gives it back.
+ * So at most buffers x blockSize bytes of the file are in memory at once, and
+ * the reader is throttled when the workers fall behind. The stall times and
+ * queue depths of a run come with its {@link PipelineResult}.
+ * <p>
+ * The reader also holds back while too many parsed blocks wait to be merged
+ * behind a slow one, so the partials are bounded too. The only thing that can
+ * still grow with the file is a block holding a line longer than the block
+ * size. A processor made by {@link #bounded(int, long)} rejects such lines
+ * instead, so its file buffers never exceed the given number of bytes however
+ * large the file is; the rest of its heap grows only with the number of
+ * distinct tickers and years.
+ * <p>
+ * By default the first malformed line fails the run. A processor made by
+ * {@link #withQuarantine(String, long)} skips malformed lines instead, counts
+ * them per block, and writes the first few of each block with their byte
+ * offsets to a reject file. Once more lines than the error budget have been
+ * rejected, the worker that sees it fails the run and the others are
+ * interrupted, so a badly broken file is abandoned after about one block per
+ * worker. Clean lines take the same path as before.
+ * <p>
+ * Compressed files are read through {@link CompressedInput}, so gzip members
+ * are inflated on their own threads ahead of the reader.
+ * <p>
+ * The JDK this project targets has no virtual threads, so the stages run on
+ * platform threads; the reader only blocks on I/O and the free-buffer queue.
+ */
 public class ParallelDataProcessor implements DataProcessor {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    static final int MIN_BOUNDED_BLOCK_SIZE = 4096;
+    static final int REJECT_SAMPLES_PER_BLOCK = 8;
+    static final int MAX_REJECT_SAMPLES = 1000;
+    static final int MAX_REJECT_LINE = 256;
+
+    private final int workers;
+    private final int blockSize;
+    private final int buffers;
+    private final boolean bounded;
+    // -1 to fail on the first malformed line
+    private final long errorBudget;
+    private final String rejectFile;
+    private final boolean padded;
+    private final int topK;
+
+    public ParallelDataProcessor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Uses two buffers per worker, so each worker can have one queued while it
+     * parses another.
+     */
+    public ParallelDataProcessor(int workers, int blockSize) {
+        this(workers, blockSize, 2 * workers);
+    }
+
+    /**
+     * @param workers   The number of parse workers.
+     * @param blockSize The number of bytes the reader hands to a worker at once.
+     * @param buffers   The number of block buffers shared by the stages.
+     */
+    public ParallelDataProcessor(int workers, int blockSize, int buffers) {
+        this(workers, blockSize, buffers, false, -1, null, false, 0);
+    }
+
+    private ParallelDataProcessor(int workers, int blockSize, int buffers, boolean bounded, long errorBudget,
+            String rejectFile, boolean padded, int topK) {
+        if (workers < 1 || blockSize < 1 || buffers < 1) {
+            throw new IllegalArgumentException("workers, blockSize and buffers must be positive");
+        }
+        this.workers = workers;
+        this.blockSize = blockSize;
+        this.buffers = buffers;
+        this.bounded = bounded;
+        this.errorBudget = errorBudget;
+        this.rejectFile = rejectFile;
+        this.padded = padded;
+        this.topK = topK;
+    }
+
+    /**
+     * Makes a processor whose file buffers, including the one holding the
+     * incomplete line between blocks, never take more than maxInFlightBytes.
+     * The budget is split into two buffers per worker plus that one, of at
+     * most {@link #DEFAULT_BLOCK_SIZE} each. A line that does not fit in a
+     * buffer fails the run with a ProcessingException.
+     *
+     * @throws IllegalArgumentException If the buffers would be smaller than 4 KB.
+     */
+    public static ParallelDataProcessor bounded(int workers, long maxInFlightBytes) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        int buffers = 2 * workers;
+        long blockSize = Math.min(DEFAULT_BLOCK_SIZE, maxInFlightBytes / (buffers + 1));
+        if (blockSize < MIN_BOUNDED_BLOCK_SIZE) {
+            throw new IllegalArgumentException("maxInFlightBytes must be at least "
+                    + (long) MIN_BOUNDED_BLOCK_SIZE * (buffers + 1) + " for " + workers + " workers");
+        }
+        return new ParallelDataProcessor(workers, (int) blockSize, buffers, true, -1, null, false, 0);
+    }
+
+    /**
+     * Makes a copy of this processor that skips malformed lines.
+     *
+     * @param rejectFile  The file to write a sample of the malformed lines to,
+     *                    one per line after its byte offset and a tab, or null.
+     * @param errorBudget The number of malformed lines to tolerate before failing.
+     */
+    public ParallelDataProcessor withQuarantine(String rejectFile, long errorBudget) {
+        if (errorBudget < 0) {
+            throw new IllegalArgumentException("errorBudget must not be negative");
+        }
+        return new ParallelDataProcessor(workers, blockSize, buffers, bounded, errorBudget, rejectFile, padded, topK);
+    }
+
+    /**
+     * Makes a copy of this processor whose workers pad their accumulators to
+     * their own cache lines, see {@link PaddedTickerStatsAccumulator}.
+     */
+    public ParallelDataProcessor withPaddedAccumulators() {
+        return new ParallelDataProcessor(workers, blockSize, buffers, bounded, errorBudget, rejectFile, true, topK);
+    }
+
+    /**
+     * Makes a copy of this processor that also ranks the top tickers each year.
+     *
+     * @param topK The number of top tickers by close and by volume to rank
+     *             each year, see {@link edu.yu.parallel.TopTickerStats}, or 0 for none.
+     */
+    public ParallelDataProcessor withTopK(int topK) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        return new ParallelDataProcessor(workers, blockSize, buffers, bounded, errorBudget, rejectFile, padded, topK);
+    }
+
+    /**
+     * @return True if this processor was made by {@link #bounded(int, long)}.
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    private static final class Block {
+        byte[] data;
+        int length;
+        long sequence;
+        // Where data[0] is in the file
+        long offset;
+
+        Block(int size) {
+            data = new byte[size];
+        }
+    }
+
+    /**
+     * Message to the merger: a parsed block, the end of the input, or a failure.
+     */
+    private static final class Partial {
+        final long sequence;
+        final TickerStatsByYear stats;
+        final BlockRejects rejects;
+        final Throwable failure;
+        final long totalBlocks;
+
+        Partial(long sequence, TickerStatsByYear stats, Throwable failure, long totalBlocks) {
+            this(sequence, stats, null, failure, totalBlocks);
+        }
+
+        Partial(long sequence, TickerStatsByYear stats, BlockRejects rejects, Throwable failure, long totalBlocks) {
+            this.sequence = sequence;
+            this.stats = stats;
+            this.rejects = rejects;
+            this.failure = failure;
+            this.totalBlocks = totalBlocks;
+        }
+    }
+
+    /**
+     * The malformed lines of one block: how many, and the first few with their
+     * offsets in the file.
+     */
+    private static final class BlockRejects implements QuoteParser.RejectSink {
+        final long blockOffset;
+        final long errorBudget;
+        // Shared by the workers, so the budget is checked against the whole file
+        final AtomicLong rejected;
+        int count;
+        long[] offsets = new long[0];
+        byte[][] lines = new byte[0][];
+
+        BlockRejects(long blockOffset, long errorBudget, AtomicLong rejected) {
+            this.blockOffset = blockOffset;
+            this.errorBudget = errorBudget;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void reject(byte[] buf, int start, int end) throws ProcessingException {
+            count++;
+            if (lines.length < REJECT_SAMPLES_PER_BLOCK) {
+                offsets = Arrays.copyOf(offsets, lines.length + 1);
+                offsets[lines.length] = blockOffset + start;
+                lines = Arrays.copyOf(lines, lines.length + 1);
+                lines[lines.length - 1] = Arrays.copyOfRange(buf, start, Math.min(end, start + MAX_REJECT_LINE));
+            }
+            if (rejected.incrementAndGet() > errorBudget) {
+                throw new ProcessingException("More than " + errorBudget + " malformed lines, the last at byte "
+                        + (blockOffset + start) + ": " + QuoteParser.ascii(buf, start, end - start));
+            }
+        }
+    }
+
+    // Tells a worker that the reader is done
+    private static final Block END = new Block(0);
 
     @Override
     public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
-        // TBD: Implement this method
-        // Read the file at the given path and process it in parallel
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    @Override
+    public PipelineResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
         // Note: You may NOT use the java.nio package for this implementation
         // Note: You may NOT use the java.util.stream package for this implementation
-        throw new ProcessingException("Not yet implemented");
+        long startTime = System.nanoTime();
+        long allocated = RunRecorder.allocatedBytes();
+        BlockingQueue<Block> free = new ArrayBlockingQueue<>(buffers);
+        BlockingQueue<Block> filled = new ArrayBlockingQueue<>(buffers + workers);
+        BlockingQueue<Partial> results = new LinkedBlockingQueue<>();
+        // Blocks read but not yet merged; a permit comes back when the merger folds one in
+        Semaphore window = new Semaphore(2 * buffers);
+        for (int i = 0; i < buffers; i++) {
+            free.add(new Block(blockSize));
+        }
+
+        AtomicLong bytesRead = new AtomicLong();
+        AtomicLong readNanos = new AtomicLong();
+        AtomicLong readerStallNanos = new AtomicLong();
+        AtomicLong workerStallNanos = new AtomicLong();
+        AtomicLong parseNanos = new AtomicLong();
+        AtomicLong queueDepthSum = new AtomicLong();
+        AtomicInteger maxQueueDepth = new AtomicInteger();
+        AtomicLong bufferBytes = new AtomicLong((long) (buffers + 1) * blockSize);
+        AtomicLong rejected = new AtomicLong();
+
+        InputStream in = CompressedInput.open(filePath);
+        PrintStream rejects = null;
+        RunRecorder recorder = new RunRecorder(this, filePath);
+        boolean completed = false;
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        try {
+            executor.execute(() -> {
+                try {
+                    long blocks = read(in, free, filled, window, recorder, bytesRead, bufferBytes, readNanos,
+                            readerStallNanos, queueDepthSum, maxQueueDepth);
+                    results.add(new Partial(-1, null, null, blocks));
+                } catch (Throwable t) {
+                    results.add(new Partial(-1, null, t, 0));
+                } finally {
+                    for (int i = 0; i < workers; i++) {
+                        filled.add(END);
+                    }
+                }
+            });
+            TickerDictionary dictionary = new TickerDictionary();
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> {
+                    try {
+                        parse(dictionary, free, filled, results, recorder, rejected, workerStallNanos, parseNanos);
+                    } catch (Throwable t) {
+                        results.add(new Partial(-1, null, t, 0));
+                    }
+                });
+            }
+
+            // Merge in block order so that ties resolve as in a sequential scan
+            long mergeNanos = 0;
+            TickerStatsByYear merged = new TickerStatsByYear(dictionary, topK);
+            Map<Long, Partial> pending = new HashMap<>();
+            int[] rejectsByBlock = new int[0];
+            int samples = 0;
+            if (rejectFile != null) {
+                rejects = new PrintStream(new BufferedOutputStream(new FileOutputStream(rejectFile)));
+            }
+            long next = 0;
+            long total = -1;
+            while (total < 0 || next < total) {
+                Partial partial = results.take();
+                if (partial.failure != null) {
+                    throw partial.failure;
+                }
+                long mergeStart = System.nanoTime();
+                if (partial.stats == null) {
+                    total = partial.totalBlocks;
+                } else {
+                    pending.put(partial.sequence, partial);
+                }
+                for (Partial block; (block = pending.remove(next)) != null; next++) {
+                    merged.merge(block.stats);
+                    window.release();
+                    if (block.rejects != null) {
+                        if (next >= rejectsByBlock.length) {
+                            rejectsByBlock = Arrays.copyOf(rejectsByBlock, (int) Math.max(16, 2 * next));
+                        }
+                        rejectsByBlock[(int) next] = block.rejects.count;
+                        for (int i = 0; rejects != null && i < block.rejects.lines.length
+                                && samples < MAX_REJECT_SAMPLES; i++, samples++) {
+                            rejects.print(block.rejects.offsets[i]);
+                            rejects.print('\t');
+                            rejects.write(block.rejects.lines[i]);
+                            rejects.print('\n');
+                        }
+                    }
+                }
+                mergeNanos += System.nanoTime() - mergeStart;
+                recorder.merged(System.nanoTime() - mergeStart);
+            }
+
+            PipelineMetrics pipelineMetrics = new PipelineMetrics(bytesRead.get(), total, workers, buffers, bufferBytes.get(),
+                    readNanos.get(), readerStallNanos.get(), workerStallNanos.get(), parseNanos.get(), mergeNanos,
+                    queueDepthSum.get(), maxQueueDepth.get(), rejected.get(),
+                    errorBudget < 0 ? new int[0] : Arrays.copyOf(rejectsByBlock, (int) total),
+                    System.nanoTime() - startTime);
+            Map<Integer, TickerStats> result = merged.toMap();
+            recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+            RunMetrics metrics = recorder.finish();
+            completed = true;
+            return new PipelineResult(result, metrics, pipelineMetrics);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while processing " + filePath, e);
+        } catch (IOException | ProcessingException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ProcessingException("Failed to process " + filePath, t);
+        } finally {
+            executor.shutdownNow();
+            in.close();
+            if (rejects != null) {
+                rejects.close();
+            }
+            if (!completed) {
+                recorder.abandon();
+            }
+        }
+    }
+
+    /**
+     * Reader stage: fills free buffers with whole lines and queues them.
+     *
+     * @return The number of blocks queued.
+     */
+    private long read(InputStream in, BlockingQueue<Block> free, BlockingQueue<Block> filled, Semaphore window,
+            RunRecorder recorder, AtomicLong bytesRead, AtomicLong bufferBytes, AtomicLong readNanos, AtomicLong readerStallNanos,
+            AtomicLong queueDepthSum, AtomicInteger maxQueueDepth)
+            throws IOException, ProcessingException, InterruptedException {
+        byte[] carry = new byte[blockSize];
+        int carryLength = 0;
+        long sequence = 0;
+        long offset = 0;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            long waitStart = System.nanoTime();
+            window.acquire();
+            Block block = free.take();
+            long readStart = System.nanoTime();
+            long allocated = RunRecorder.allocatedBytes();
+            readerStallNanos.addAndGet(readStart - waitStart);
+
+            if (block.data.length < carryLength) {
+                bufferBytes.addAndGet(carry.length - block.data.length);
+                block.data = new byte[carry.length];
+            }
+            System.arraycopy(carry, 0, block.data, 0, carryLength);
+            int length = carryLength;
+            int end;
+            while (true) {
+                while (length < block.data.length) {
+                    int read = in.read(block.data, length, block.data.length - length);
+                    if (read < 0) {
+                        endOfInput = true;
+                        break;
+                    }
+                    length += read;
+                    bytesRead.addAndGet(read);
+                }
+                end = endOfInput ? length : lastLineEnd(block.data, length);
+                if (end > 0 || endOfInput) {
+                    break;
+                }
+                // A single line longer than the block
+                if (bounded) {
+                    throw new ProcessingException("Line longer than " + block.data.length
+                            + " bytes at byte " + (bytesRead.get() - length) + " in bounded-memory mode");
+                }
+                bufferBytes.addAndGet(block.data.length);
+                block.data = Arrays.copyOf(block.data, block.data.length * 2);
+            }
+            readNanos.addAndGet(System.nanoTime() - readStart);
+            recorder.read(length - carryLength, System.nanoTime() - readStart);
+            recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+
+            carryLength = length - end;
+            if (carryLength > carry.length) {
+                bufferBytes.addAndGet(block.data.length - carry.length);
+                carry = new byte[block.data.length];
+            }
+            System.arraycopy(block.data, end, carry, 0, carryLength);
+
+            if (end == 0) {
+                window.release();
+                free.put(block);
+                break;
+            }
+            block.length = end;
+            block.sequence = sequence++;
+            block.offset = offset;
+            offset += end;
+            int depth = filled.size();
+            queueDepthSum.addAndGet(depth);
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+            filled.put(block);
+        }
+        return sequence;
+    }
+
+    private static int lastLineEnd(byte[] data, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parse stage: turns filled buffers into partials until the reader is done.
+     */
+    private void parse(TickerDictionary dictionary, BlockingQueue<Block> free, BlockingQueue<Block> filled,
+            BlockingQueue<Partial> results, RunRecorder recorder, AtomicLong rejected, AtomicLong workerStallNanos,
+            AtomicLong parseNanos) throws InterruptedException, ProcessingException {
+        QuoteParser parser = new QuoteParser(64);
+        while (true) {
+            long waitStart = System.nanoTime();
+            Block block = filled.take();
+            long parseStart = System.nanoTime();
+            workerStallNanos.addAndGet(parseStart - waitStart);
+            if (block == END) {
+                return;
+            }
+            long allocated = RunRecorder.allocatedBytes();
+
+            ParseChunkEvent event = recorder.beginChunk();
+            TickerStatsByYear stats = new TickerStatsByYear(dictionary, topK, padded);
+            int from = 0;
+            if (block.sequence == 0) {
+                from = QuoteParser.skipHeader(block.data, 0, block.length);
+                from = from < 0 ? block.length : from;
+            }
+            BlockRejects rejects = errorBudget < 0 ? null : new BlockRejects(block.offset, errorBudget, rejected);
+            parser.parseLines(block.data, from, block.length, true, stats, rejects);
+            long sequence = block.sequence;
+            int length = block.length;
+            free.put(block);
+            parseNanos.addAndGet(System.nanoTime() - parseStart);
+            recorder.parsed(event, length, stats.getQuoteCount(), System.nanoTime() - parseStart);
+            recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+            results.add(new Partial(sequence, stats, rejects, null, 0));
+        }
     }
 }
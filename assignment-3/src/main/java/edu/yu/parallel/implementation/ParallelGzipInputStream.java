@@ -0,0 +1,483 @@
+package edu.yu.parallel.implementation;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses a gzip file with several members on several threads.
+ * <p>
+ * A gzip file may be a series of members, each a complete gzip stream, as
+ * written by bgzip (64 KB blocks, BGZF), by compressing parts of a file
+ * separately, or by concatenating .gz files. Members don't depend on each
+ * other, so they can be inflated at the same time. Their boundaries aren't
+ * recorded anywhere, though, so the file is scanned, a little ahead of the
+ * reader, for byte sequences that look like a member header. Each candidate
+ * is inflated speculatively on a worker into a small bounded queue of chunks;
+ * the reader takes chunks from the member that starts where the previous one
+ * ended, and drops the candidates it has passed, which were only compressed
+ * bytes that happened to look like a header. Members are checked against their CRC and length.
+ * <p>
+ * Only a window of members one per thread ahead of the reader is inflated at
+ * once, so memory stays bounded, and the member the reader needs is always
+ * being worked on. The scan looks for that window's candidates at most a
+ * megabyte per thread past the reader, so a large member only delays finding
+ * the ones after it until the reader gets there. A single-member file is
+ * inflated by one worker, which still lets the caller parse while it
+ * inflates.
+ */
+public class ParallelGzipInputStream extends InputStream {
+    static final int CHUNK_SIZE = 1 << 16;
+    private static final int QUEUED_CHUNKS = 16;
+    private static final int READ_SIZE = 1 << 16;
+    static final int SCAN_AHEAD = 1 << 20;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final File file;
+    private final long length;
+    private final int window;
+    private final int scanAhead;
+    private final ExecutorService executor;
+    // Members being inflated, by their offset in the file
+    private final Map<Long, Member> running = new HashMap<>();
+    private final InputStream scanIn;
+    private final byte[] scanBuf = new byte[READ_SIZE + 3];
+    private int scanKept;
+    // Every candidate before this offset has been found
+    private long scanned;
+    private boolean scanDone;
+    // Candidates from the reader's position on are candidates[head..tail)
+    private long[] candidates = new long[16];
+    private int head;
+    private int tail;
+    // The last candidate handed to a worker
+    private long submitted = -1;
+    private Member current;
+    private long position;
+    private final byte[] one = new byte[1];
+    private byte[] chunk = new byte[0];
+    private int chunkPosition;
+    private int chunkLength;
+    private boolean closed;
+
+    /**
+     * Output of one member, or the reason it could not be inflated.
+     */
+    private static final class Chunk {
+        final byte[] data;
+        final int length;
+        // Offset just past the member's trailer on its last chunk, otherwise -1
+        final long end;
+        final Throwable failure;
+
+        Chunk(byte[] data, int length, long end, Throwable failure) {
+            this.data = data;
+            this.length = length;
+            this.end = end;
+            this.failure = failure;
+        }
+    }
+
+    private static final class Member {
+        final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+        Future<?> task;
+    }
+
+    /**
+     * @param threads The number of members to inflate at once.
+     */
+    public ParallelGzipInputStream(String filePath, int threads) throws IOException {
+        this(filePath, threads, SCAN_AHEAD);
+    }
+
+    /**
+     * @param scanAhead How far past the reader, per thread, to look for the
+     *                  candidates to inflate.
+     */
+    ParallelGzipInputStream(String filePath, int threads, int scanAhead) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (scanAhead < 1) {
+            throw new IllegalArgumentException("scanAhead must be positive");
+        }
+        this.file = new File(filePath);
+        this.length = file.length();
+        this.window = threads;
+        this.scanAhead = scanAhead;
+        this.scanIn = new FileInputStream(file);
+        try {
+            while (!scanDone && scanned == 0) {
+                scanMore();
+            }
+        } catch (IOException e) {
+            scanIn.close();
+            throw e;
+        }
+        if (head == tail || candidates[head] != 0) {
+            scanIn.close();
+            throw new IOException("Not in gzip format: " + filePath);
+        }
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "gzip-inflater");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the next block of the file and adds everything in it that looks
+     * like the start of a gzip member: the magic bytes, the deflate method,
+     * and no reserved flags.
+     */
+    private void scanMore() throws IOException {
+        int read = scanIn.read(scanBuf, scanKept, READ_SIZE);
+        if (read <= 0) {
+            // The kept bytes are too short to hold a header
+            scanDone = true;
+            scanned = length;
+            return;
+        }
+        int filled = scanKept + read;
+        for (int i = 0; i + 3 < filled; i++) {
+            if (scanBuf[i] == 0x1f && scanBuf[i + 1] == (byte) 0x8b && scanBuf[i + 2] == 8
+                    && (scanBuf[i + 3] & 0xe0) == 0) {
+                addCandidate(scanned + i);
+            }
+        }
+        // Keep the last three bytes so headers across reads are seen
+        scanKept = Math.min(3, filled);
+        System.arraycopy(scanBuf, filled - scanKept, scanBuf, 0, scanKept);
+        scanned += filled - scanKept;
+    }
+
+    private void addCandidate(long offset) {
+        if (tail == candidates.length) {
+            if (head > 0) {
+                // Reuse the room of the candidates the reader has passed
+                System.arraycopy(candidates, head, candidates, 0, tail - head);
+                tail -= head;
+                head = 0;
+            } else {
+                candidates = Arrays.copyOf(candidates, 2 * tail);
+            }
+        }
+        candidates[tail++] = offset;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (chunkPosition == chunkLength) {
+            if (!nextChunk()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, chunkLength - chunkPosition);
+        System.arraycopy(chunk, chunkPosition, b, off, n);
+        chunkPosition += n;
+        return n;
+    }
+
+    /**
+     * @return False at the end of the last member.
+     */
+    private boolean nextChunk() throws IOException {
+        if (current == null) {
+            if (position >= length) {
+                return false;
+            }
+            current = memberAt(position);
+            if (current == null) {
+                // Trailing bytes that are not a member are ignored, as GZIPInputStream does
+                return false;
+            }
+        }
+        Chunk next;
+        try {
+            next = current.chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while inflating " + file);
+        }
+        if (next.failure != null) {
+            rethrow(next.failure);
+        }
+        chunk = next.data;
+        chunkPosition = 0;
+        chunkLength = next.length;
+        if (next.end >= 0) {
+            position = next.end;
+            current = null;
+        }
+        return true;
+    }
+
+    /**
+     * Throws a worker's failure on the reader's thread.
+     */
+    private void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new IOException("Failed to inflate " + file, failure);
+    }
+
+    /**
+     * Cancels the candidates before offset, which turned out not to be
+     * members, and makes sure the window of members from offset on is being
+     * inflated, scanning further into the file as needed.
+     *
+     * @return The member at offset, or null if there is none.
+     */
+    private Member memberAt(long offset) throws IOException {
+        for (Iterator<Map.Entry<Long, Member>> it = running.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Long, Member> entry = it.next();
+            if (entry.getKey() < offset) {
+                entry.getValue().task.cancel(true);
+                it.remove();
+            }
+        }
+        while (!scanDone && scanned <= offset) {
+            scanMore();
+        }
+        while (head < tail && candidates[head] < offset) {
+            head++;
+        }
+        if (head == tail || candidates[head] != offset) {
+            return null;
+        }
+        long limit = offset + (long) window * scanAhead;
+        while (!scanDone && tail - head < window && scanned < limit) {
+            scanMore();
+        }
+        for (int i = head; i < tail && i < head + window; i++) {
+            long start = candidates[i];
+            if (start > submitted) {
+                Member member = new Member();
+                member.task = executor.submit(() -> inflate(start, member.chunks));
+                running.put(start, member);
+                submitted = start;
+            }
+        }
+        return running.remove(offset);
+    }
+
+    /**
+     * Inflates the member at start into chunks, ending with a chunk that holds
+     * the offset after the member, or whatever the worker failed with, which
+     * the reader rethrows instead of waiting for a chunk that never comes.
+     */
+    private void inflate(long start, BlockingQueue<Chunk> chunks) {
+        Throwable failure;
+        try (Source source = new Source(file, start)) {
+            inflate(source, chunks);
+            return;
+        } catch (InterruptedException e) {
+            // Cancelled: the reader has moved past this candidate
+            return;
+        } catch (Throwable e) {
+            failure = e;
+        }
+        try {
+            chunks.put(new Chunk(null, 0, -1, failure));
+        } catch (InterruptedException e) {
+            // Cancelled while the reader was not taking chunks
+        }
+    }
+
+    private static void inflate(Source source, BlockingQueue<Chunk> chunks) throws IOException, InterruptedException {
+        long start = source.offset();
+        if (source.read() != 0x1f || source.read() != 0x8b || source.read() != 8) {
+            throw new IOException("Not a gzip member at byte " + start);
+        }
+        int flags = source.read();
+        source.skip(6);
+        if ((flags & FEXTRA) != 0) {
+            source.skip(source.read() | source.read() << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            while (source.read() != 0) {
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (source.read() != 0) {
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            source.skip(2);
+        }
+
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] out = new byte[CHUNK_SIZE];
+        int filled = 0;
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    source.feed(inflater);
+                }
+                int n = inflater.inflate(out, filled, out.length - filled);
+                if (n == 0 && inflater.needsDictionary()) {
+                    throw new IOException("Bad gzip member at byte " + start);
+                }
+                crc.update(out, filled, n);
+                filled += n;
+                size += n;
+                if (filled == out.length) {
+                    chunks.put(new Chunk(out, filled, -1, null));
+                    out = new byte[CHUNK_SIZE];
+                    filled = 0;
+                }
+            }
+            source.unread(inflater.getRemaining());
+        } catch (DataFormatException e) {
+            throw new IOException("Bad gzip member at byte " + start + ": " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+
+        long expectedCrc = source.readIntLE();
+        long expectedSize = source.readIntLE();
+        if (expectedCrc != crc.getValue() || expectedSize != (size & 0xffffffffL)) {
+            throw new IOException("Corrupt gzip member at byte " + start);
+        }
+        chunks.put(new Chunk(out, filled, source.offset(), null));
+    }
+
+    /**
+     * Buffered reader of the file from a given offset that knows where it is.
+     */
+    private static final class Source implements AutoCloseable {
+        private final InputStream in;
+        private final byte[] buf = new byte[READ_SIZE];
+        // Offset in the file of buf[0]
+        private long base;
+        private int position;
+        private int length;
+
+        Source(File file, long start) throws IOException {
+            in = new FileInputStream(file);
+            long skipped = 0;
+            while (skipped < start) {
+                long n = in.skip(start - skipped);
+                if (n <= 0) {
+                    in.close();
+                    throw new EOFException("Unexpected end of gzip file");
+                }
+                skipped += n;
+            }
+            base = start;
+        }
+
+        long offset() {
+            return base + position;
+        }
+
+        private void fill() throws IOException {
+            base += length;
+            position = 0;
+            length = Math.max(0, in.read(buf));
+            if (length == 0) {
+                throw new EOFException("Unexpected end of gzip file");
+            }
+        }
+
+        int read() throws IOException {
+            if (position == length) {
+                fill();
+            }
+            return buf[position++] & 0xff;
+        }
+
+        void skip(int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                read();
+            }
+        }
+
+        long readIntLE() throws IOException {
+            return read() | read() << 8 | read() << 16 | (long) read() << 24;
+        }
+
+        /**
+         * Hands the rest of the buffer to the inflater.
+         */
+        void feed(Inflater inflater) throws IOException {
+            if (position == length) {
+                fill();
+            }
+            inflater.setInput(buf, position, length - position);
+            position = length;
+        }
+
+        /**
+         * Takes back the bytes the inflater did not use.
+         */
+        void unread(int n) {
+            position -= n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        List<Member> members = new ArrayList<>(running.values());
+        if (current != null) {
+            members.add(current);
+        }
+        for (Member member : members) {
+            member.task.cancel(true);
+        }
+        running.clear();
+        executor.shutdownNow();
+        try {
+            scanIn.close();
+        } catch (IOException e) {
+            // Nothing was written, so there is nothing to lose
+        }
+    }
+}
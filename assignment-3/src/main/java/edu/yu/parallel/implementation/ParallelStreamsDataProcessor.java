@@ -1,17 +1,188 @@
 package edu.yu.parallel.implementation;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.StreamSupport;
+
 import edu.yu.parallel.DataProcessor;
 import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.RunResult;
 import edu.yu.parallel.TickerStats;
 
+/**
+ * Parses the file with a parallel stream over a {@link LineSpliterator}, which
+ * hands out memory-mapped slices of whole lines and splits evenly, so the
+ * common fork/join pool can balance the parse across all cores.
+ * <p>
+ * The slices are reduced with a {@link Collector} whose combiner merges the
+ * left partial with the right one. The collector is not UNORDERED, so the
+ * stream combines partials in file order and ties resolve as in
+ * {@link SequentialDataProcessor}.
+ * <p>
+ * Given a parallelism, the stream runs in a fork/join pool of its own with
+ * that many workers instead of the common pool, which is sized for all cores
+ * and shared with everything else in the JVM.
+ */
 public class ParallelStreamsDataProcessor implements DataProcessor {
+    public static final int DEFAULT_BATCH_SIZE = 1 << 20;
+
+    private final int batchSize;
+    // 0 to use the common pool
+    private final int parallelism;
+    private final boolean padded;
+    private final int topK;
+    private final SliceParsers parsers;
+
+    public ParallelStreamsDataProcessor() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize The number of bytes in each slice the stream hands to a worker.
+     */
+    public ParallelStreamsDataProcessor(int batchSize) {
+        this(batchSize, 0, false, 0);
+    }
+
+    /**
+     * @param batchSize   The number of bytes in each slice the stream hands to a worker.
+     * @param parallelism The number of workers in the pool the stream runs in,
+     *                    or 0 to run it in the common pool.
+     */
+    public ParallelStreamsDataProcessor(int batchSize, int parallelism) {
+        this(batchSize, parallelism, false, 0);
+    }
+
+    private ParallelStreamsDataProcessor(int batchSize, int parallelism, boolean padded, int topK) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("parallelism must not be negative");
+        }
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.padded = padded;
+        this.topK = topK;
+        int blockSize = Math.min(batchSize, QuoteParser.DEFAULT_BLOCK_SIZE);
+        this.parsers = new SliceParsers(blockSize);
+    }
+
+    /**
+     * Makes a copy of this processor whose workers pad their accumulators to
+     * their own cache lines, see {@link PaddedTickerStatsAccumulator}.
+     */
+    public ParallelStreamsDataProcessor withPaddedAccumulators() {
+        return new ParallelStreamsDataProcessor(batchSize, parallelism, true, topK);
+    }
+
+    /**
+     * Makes a copy of this processor that also ranks the top tickers each year.
+     *
+     * @param topK The number of top tickers by close and by volume to rank
+     *             each year, see {@link edu.yu.parallel.TopTickerStats}, or 0 for none.
+     */
+    public ParallelStreamsDataProcessor withTopK(int topK) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        return new ParallelStreamsDataProcessor(batchSize, parallelism, padded, topK);
+    }
 
     @Override
     public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
-        // TBD: Implement this method using parallel streams
-        // This method should read the file at the given path and process it using streams
-        throw new ProcessingException("Not yet implemented");
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    @Override
+    public RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        if (CompressedInput.isCompressed(filePath)) {
+            // A compressed file can't be mapped and split; the pipeline streams it instead
+            return new ParallelDataProcessor().withTopK(topK).processFileWithMetrics(filePath);
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            LineSpliterator slices = new LineSpliterator(channel, firstLineStart(channel, size), size, batchSize);
+            RunRecorder recorder = new RunRecorder(this, filePath);
+            boolean completed = false;
+            try {
+                Map<Integer, TickerStats> result = collect(filePath, slices, recorder);
+                RunMetrics metrics = recorder.finish();
+                completed = true;
+                return new RunResult(result, metrics);
+            } finally {
+                if (!completed) {
+                    recorder.abandon();
+                }
+            }
+        } catch (RuntimeException e) {
+            throw SliceParsers.rethrow(e);
+        }
+    }
+
+    private Map<Integer, TickerStats> collect(String filePath, LineSpliterator slices, RunRecorder recorder)
+            throws ProcessingException {
+        Collector<ByteBuffer, TickerStatsByYear, Map<Integer, TickerStats>> collector =
+                collector(new TickerDictionary(), recorder);
+        if (parallelism == 0) {
+            return StreamSupport.stream(slices, true).collect(collector);
+        }
+        // A stream started from a task in a pool forks its subtasks into that pool
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> StreamSupport.stream(slices, true).collect(collector)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while processing " + filePath, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ProcessingException("Failed to process " + filePath, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The offset after the header line, or 0 if there is none.
+     */
+    static long firstLineStart(FileChannel channel, long size) throws IOException {
+        ByteBuffer first = ByteBuffer.allocate(1);
+        if (channel.read(first, 0) < 1 || Character.isDigit(first.get(0))) {
+            return 0;
+        }
+        return MemoryMappedDataProcessor.nextLineStart(channel, 1, size);
+    }
+
+    private Collector<ByteBuffer, TickerStatsByYear, Map<Integer, TickerStats>> collector(TickerDictionary dictionary,
+            RunRecorder recorder) {
+        return Collector.of(() -> new TickerStatsByYear(dictionary, topK, padded), (stats, slice) -> parse(recorder, stats, slice),
+                (left, right) -> {
+                    long mergeStart = System.nanoTime();
+                    left.merge(right);
+                    recorder.merged(System.nanoTime() - mergeStart);
+                    return left;
+                }, TickerStatsByYear::toMap);
+    }
+
+    private void parse(RunRecorder recorder, TickerStatsByYear stats, ByteBuffer slice) {
+        long allocated = RunRecorder.allocatedBytes();
+        long parseStart = System.nanoTime();
+        ParseChunkEvent event = recorder.beginChunk();
+        long rows = stats.getQuoteCount();
+        int bytes = slice.remaining();
+        parsers.parse(slice, stats);
+        recorder.scanned(bytes);
+        recorder.parsed(event, bytes, stats.getQuoteCount() - rows, System.nanoTime() - parseStart);
+        recorder.allocated(RunRecorder.allocatedBytes() - allocated);
     }
 }
@@ -0,0 +1,27 @@
+package edu.yu.parallel.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one block, chunk or slice parsed by a worker. The event's
+ * thread is the worker, so a recording shows how the work was spread.
+ */
+@Name("edu.yu.parallel.ParseChunk")
+@Label("Parse Chunk")
+@Category("S&P Data")
+@Description("One part of a file parsed by a DataProcessor worker")
+final class ParseChunkEvent extends jdk.jfr.Event {
+    @Label("Processor")
+    String processor;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Rows")
+    long rows;
+}
@@ -0,0 +1,159 @@
+package edu.yu.parallel.implementation;
+
+/**
+ * Counters from one run of the {@link ParallelDataProcessor} pipeline.
+ * <p>
+ * The stall times tell which side limits throughput: if the reader spends its
+ * time waiting for a free buffer, the parse workers can't keep up and the run
+ * is CPU-bound; if the workers spend their time waiting for a filled buffer,
+ * the reader can't keep up and the run is I/O-bound.
+ */
+public class PipelineMetrics {
+    private final long bytesRead;
+    private final long blocks;
+    private final int workers;
+    private final int buffers;
+    private final long bufferBytes;
+    private final long readNanos;
+    private final long readerStallNanos;
+    private final long workerStallNanos;
+    private final long parseNanos;
+    private final long mergeNanos;
+    private final long queueDepthSum;
+    private final int maxQueueDepth;
+    private final long rejectedLines;
+    private final int[] rejectsByBlock;
+    private final long elapsedNanos;
+
+    PipelineMetrics(long bytesRead, long blocks, int workers, int buffers, long bufferBytes, long readNanos,
+            long readerStallNanos, long workerStallNanos, long parseNanos, long mergeNanos, long queueDepthSum,
+            int maxQueueDepth, long rejectedLines, int[] rejectsByBlock, long elapsedNanos) {
+        this.bytesRead = bytesRead;
+        this.blocks = blocks;
+        this.workers = workers;
+        this.buffers = buffers;
+        this.bufferBytes = bufferBytes;
+        this.readNanos = readNanos;
+        this.readerStallNanos = readerStallNanos;
+        this.workerStallNanos = workerStallNanos;
+        this.parseNanos = parseNanos;
+        this.mergeNanos = mergeNanos;
+        this.queueDepthSum = queueDepthSum;
+        this.maxQueueDepth = maxQueueDepth;
+        this.rejectedLines = rejectedLines;
+        this.rejectsByBlock = rejectsByBlock;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return The number of blocks handed from the reader to the parse workers.
+     */
+    public long getBlocks() {
+        return blocks;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getBuffers() {
+        return buffers;
+    }
+
+    /**
+     * @return The bytes allocated for file data at the end of the run: the
+     *         block buffers and the buffer for the line between blocks. This
+     *         only grows past its initial size for lines longer than a block.
+     */
+    public long getBufferBytes() {
+        return bufferBytes;
+    }
+
+    /**
+     * @return Time the reader spent in InputStream.read.
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * @return Time the reader spent waiting for a free buffer.
+     */
+    public long getReaderStallNanos() {
+        return readerStallNanos;
+    }
+
+    /**
+     * @return Time the parse workers spent waiting for a filled buffer, summed over workers.
+     */
+    public long getWorkerStallNanos() {
+        return workerStallNanos;
+    }
+
+    /**
+     * @return Time the parse workers spent parsing, summed over workers.
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * @return Time spent merging partial results.
+     */
+    public long getMergeNanos() {
+        return mergeNanos;
+    }
+
+    /**
+     * @return The average number of filled buffers waiting for a worker, sampled
+     *         each time the reader hands one off.
+     */
+    public double getAverageQueueDepth() {
+        return blocks == 0 ? 0 : (double) queueDepthSum / blocks;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return The number of malformed lines skipped, 0 unless the processor
+     *         quarantines them.
+     */
+    public long getRejectedLines() {
+        return rejectedLines;
+    }
+
+    /**
+     * @return The number of malformed lines skipped in each block, in file
+     *         order, or an empty array unless the processor quarantines them.
+     */
+    public int[] getRejectsByBlock() {
+        return rejectsByBlock.clone();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return True if the workers waited for input, on average per worker,
+     *         longer than the reader waited for free buffers.
+     */
+    public boolean isIoBound() {
+        return workers > 0 && workerStallNanos / workers > readerStallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bytes in %d blocks, %d workers, %d buffers (%d bytes), read %d ms, reader stall %d ms, "
+                + "worker stall %d ms, parse %d ms, merge %d ms, queue depth avg %.1f max %d, %d rejected, %s-bound",
+                bytesRead, blocks, workers, buffers, bufferBytes, readNanos / 1_000_000, readerStallNanos / 1_000_000,
+                workerStallNanos / 1_000_000, parseNanos / 1_000_000, mergeNanos / 1_000_000,
+                getAverageQueueDepth(), maxQueueDepth, rejectedLines, isIoBound() ? "I/O" : "CPU");
+    }
+}
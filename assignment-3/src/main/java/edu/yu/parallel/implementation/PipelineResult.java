@@ -0,0 +1,24 @@
+package edu.yu.parallel.implementation;
+
+import java.util.Map;
+
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.RunResult;
+import edu.yu.parallel.TickerStats;
+
+/**
+ * The result of one {@link ParallelDataProcessor} run, which also carries the
+ * pipeline's own counters.
+ */
+public class PipelineResult extends RunResult {
+    private final PipelineMetrics pipelineMetrics;
+
+    PipelineResult(Map<Integer, TickerStats> stats, RunMetrics metrics, PipelineMetrics pipelineMetrics) {
+        super(stats, metrics);
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    public PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+}
@@ -0,0 +1,53 @@
+package edu.yu.parallel.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one processFile run, with the totals of its RunMetrics.
+ */
+@Name("edu.yu.parallel.ProcessFile")
+@Label("Process File")
+@Category("S&P Data")
+@Description("One processFile run of a DataProcessor")
+final class ProcessFileEvent extends jdk.jfr.Event {
+    @Label("Processor")
+    String processor;
+
+    @Label("File")
+    String file;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Rows Parsed")
+    long rowsParsed;
+
+    @Label("Read Time")
+    @Timespan
+    long readNanos;
+
+    @Label("Parse Time")
+    @Timespan
+    long parseNanos;
+
+    @Label("Merge Time")
+    @Timespan
+    long mergeNanos;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Workers")
+    int workers;
+
+    @Label("Worker Skew")
+    @Description("Most rows parsed by one worker over the average")
+    double workerSkew;
+}
@@ -0,0 +1,181 @@
+package edu.yu.parallel.implementation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.RunMetrics;
+
+/**
+ * The MBean of one processor class. Each {@link RunRecorder} reports to the
+ * monitor of its processor when it starts and finishes. Runs of the same
+ * class may overlap, so the monitor keeps every run in progress and shows
+ * their totals.
+ */
+final class ProcessorMonitor implements ProcessorMonitorMXBean {
+    private final static Logger logger = LogManager.getLogger(ProcessorMonitor.class);
+    private static final Map<String, ProcessorMonitor> monitors = new ConcurrentHashMap<>();
+
+    private final String processor;
+    private final AtomicLong completedRuns = new AtomicLong();
+    private final Set<RunRecorder> running = ConcurrentHashMap.newKeySet();
+    private volatile RunMetrics lastRun;
+
+    private ProcessorMonitor(String processor) {
+        this.processor = processor;
+    }
+
+    /**
+     * @return The monitor of the processor, registered on first use.
+     */
+    static ProcessorMonitor of(String processor) {
+        return monitors.computeIfAbsent(processor, name -> {
+            ProcessorMonitor monitor = new ProcessorMonitor(name);
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(monitor,
+                        new ObjectName("edu.yu.parallel:type=DataProcessor,name=" + name));
+            } catch (JMException e) {
+                logger.warn("Could not register the MBean for {}: {}", name, e.getMessage());
+            }
+            return monitor;
+        });
+    }
+
+    void started(RunRecorder recorder) {
+        running.add(recorder);
+    }
+
+    void finished(RunRecorder recorder, RunMetrics metrics) {
+        lastRun = metrics;
+        completedRuns.incrementAndGet();
+        running.remove(recorder);
+    }
+
+    void abandoned(RunRecorder recorder) {
+        running.remove(recorder);
+    }
+
+    /**
+     * @return The metrics of the runs in progress so far, summed, else of the
+     *         last one. Elapsed time is the longest run's.
+     */
+    private RunMetrics view() {
+        Set<String> files = new TreeSet<>();
+        long bytesRead = 0, rowsParsed = 0, readNanos = 0, parseNanos = 0, mergeNanos = 0, elapsedNanos = 0;
+        long allocatedBytes = 0;
+        Map<String, Long> rowsByWorker = new HashMap<>();
+        for (RunRecorder recorder : running) {
+            RunMetrics run = recorder.snapshot();
+            files.add(run.getFile());
+            bytesRead += run.getBytesRead();
+            rowsParsed += run.getRowsParsed();
+            readNanos += run.getReadNanos();
+            parseNanos += run.getParseNanos();
+            mergeNanos += run.getMergeNanos();
+            elapsedNanos = Math.max(elapsedNanos, run.getElapsedNanos());
+            allocatedBytes += run.getAllocatedBytes();
+            run.getRowsByWorker().forEach((worker, rows) -> rowsByWorker.merge(worker, rows, Long::sum));
+        }
+        if (files.isEmpty()) {
+            return lastRun;
+        }
+        return new RunMetrics(processor, String.join(", ", files), bytesRead, rowsParsed, readNanos, parseNanos,
+                mergeNanos, elapsedNanos, allocatedBytes, rowsByWorker);
+    }
+
+    @Override
+    public String getProcessor() {
+        return processor;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !running.isEmpty();
+    }
+
+    @Override
+    public int getRunningRuns() {
+        return running.size();
+    }
+
+    @Override
+    public String getFile() {
+        RunMetrics view = view();
+        return view == null ? null : view.getFile();
+    }
+
+    @Override
+    public long getBytesRead() {
+        RunMetrics view = view();
+        return view == null ? 0 : view.getBytesRead();
+    }
+
+    @Override
+    public long getRowsParsed() {
+        RunMetrics view = view();
+        return view == null ? 0 : view.getRowsParsed();
+    }
+
+    @Override
+    public long getReadMillis() {
+        RunMetrics view = view();
+        return view == null ? 0 : view.getReadNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getParseMillis() {
+        RunMetrics view = view();
+        return view == null ? 0 : view.getParseNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getMergeMillis() {
+        RunMetrics view = view();
+        return view == null ? 0 : view.getMergeNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        RunMetrics view = view();
+        return view == null ? 0 : view.getElapsedNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        RunMetrics view = view();
+        return view == null ? 0 : view.getAllocatedBytes();
+    }
+
+    @Override
+    public Map<String, Long> getRowsByWorker() {
+        RunMetrics view = view();
+        return view == null ? Collections.emptyMap() : view.getRowsByWorker();
+    }
+
+    @Override
+    public double getWorkerSkew() {
+        RunMetrics view = view();
+        return view == null ? 1 : view.getWorkerSkew();
+    }
+
+    @Override
+    public long getCompletedRuns() {
+        return completedRuns.get();
+    }
+
+    @Override
+    public RunMetrics getLastRun() {
+        return lastRun;
+    }
+}
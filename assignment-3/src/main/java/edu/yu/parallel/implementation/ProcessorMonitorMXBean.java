@@ -0,0 +1,46 @@
+package edu.yu.parallel.implementation;
+
+import java.util.Map;
+
+import edu.yu.parallel.RunMetrics;
+
+/**
+ * Live view of a processor class's runs, registered with the platform MBean
+ * server as edu.yu.parallel:type=DataProcessor,name=&lt;class name&gt;. While
+ * runs are going on the counters are their totals so far; otherwise they are
+ * the last completed run's.
+ */
+public interface ProcessorMonitorMXBean {
+    String getProcessor();
+
+    boolean isRunning();
+
+    int getRunningRuns();
+
+    String getFile();
+
+    long getBytesRead();
+
+    long getRowsParsed();
+
+    long getReadMillis();
+
+    long getParseMillis();
+
+    long getMergeMillis();
+
+    long getElapsedMillis();
+
+    long getAllocatedBytes();
+
+    Map<String, Long> getRowsByWorker();
+
+    double getWorkerSkew();
+
+    long getCompletedRuns();
+
+    /**
+     * @return The metrics of the last completed run, or null.
+     */
+    RunMetrics getLastRun();
+}
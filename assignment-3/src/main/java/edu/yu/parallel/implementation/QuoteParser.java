@@ -0,0 +1,359 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import edu.yu.parallel.ProcessingException;
+
+/**
+ * Allocation-free parser for the S&P quote CSV:
+ * <pre>
+ * date,open,high,low,close,volume,Name
+ * 2013-02-08,15.07,15.12,14.63,14.75,8407500,AAL
+ * </pre>
+ * Only the year, close, volume and ticker columns are decoded. Lines are read
+ * straight out of a byte array and handed to a {@link QuoteSink} as primitives
+ * plus the ticker's position in that array, so no String or boxed number is
+ * created per row. The first line of a file may be the header above.
+ * <p>
+ * A parser instance keeps a block buffer and is meant to be owned by a single
+ * thread. It does not use java.nio, so the java.io-only processors can use it.
+ */
+public final class QuoteParser {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    static final int DATE = 0;
+    static final int CLOSE = 4;
+    static final int VOLUME = 5;
+    static final int TICKER = 6;
+    static final int FIELD_COUNT = 7;
+
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Receives the decoded columns of each quote.
+     */
+    @FunctionalInterface
+    public interface QuoteSink {
+        /**
+         * @param line         The buffer that holds the quote; only valid during the call.
+         * @param tickerStart  The offset of the ticker symbol in line.
+         * @param tickerLength The length of the ticker symbol.
+         */
+        void quote(int year, double close, long volume, byte[] line, int tickerStart, int tickerLength);
+    }
+
+    /**
+     * Receives malformed lines instead of the parser throwing on them.
+     */
+    @FunctionalInterface
+    public interface RejectSink {
+        /**
+         * @param buf   The buffer that holds the line; only valid during the call.
+         * @param start The offset of the line in buf.
+         * @param end   The offset of the end of the line, without its newline.
+         * @throws ProcessingException To stop parsing, e.g. when too many lines were rejected.
+         */
+        void reject(byte[] buf, int start, int end) throws ProcessingException;
+    }
+
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+    private byte[] block;
+    private byte[] line;
+    private int year;
+
+    public QuoteParser() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize The initial size of the buffer used by {@link #parse(InputStream, boolean, QuoteSink)}.
+     */
+    public QuoteParser(int blockSize) {
+        this.block = new byte[Math.max(blockSize, 64)];
+    }
+
+    /**
+     * Reads the stream to the end in blocks and parses every line in it.
+     *
+     * @param mayStartWithHeader True if the stream starts at the beginning of a file.
+     */
+    public void parse(InputStream in, boolean mayStartWithHeader, QuoteSink sink)
+            throws IOException, ProcessingException {
+        int filled = 0;
+        boolean first = mayStartWithHeader;
+        int read;
+        while ((read = in.read(block, filled, block.length - filled)) != -1) {
+            filled += read;
+            int from = 0;
+            if (first) {
+                int headerEnd = skipHeader(block, 0, filled);
+                if (headerEnd < 0) {
+                    // The header has not been read completely yet
+                    filled = growIfFull(filled);
+                    continue;
+                }
+                from = headerEnd;
+                first = false;
+            }
+            int consumed = parseLines(block, from, filled, false, sink);
+            filled -= consumed;
+            System.arraycopy(block, consumed, block, 0, filled);
+            filled = growIfFull(filled);
+        }
+        if (first) {
+            int headerEnd = skipHeader(block, 0, filled);
+            parseLines(block, headerEnd < 0 ? filled : headerEnd, filled, true, sink);
+        } else {
+            parseLines(block, 0, filled, true, sink);
+        }
+    }
+
+    private int growIfFull(int filled) {
+        if (filled == block.length) {
+            block = Arrays.copyOf(block, block.length * 2);
+        }
+        return filled;
+    }
+
+    /**
+     * @return The offset just past the header line, from if the first line is a
+     *         quote, or -1 if the first line is incomplete.
+     */
+    public static int skipHeader(byte[] buf, int from, int to) {
+        if (from == to || isDigit(buf[from])) {
+            return from;
+        }
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses every complete line in buf[from, to).
+     *
+     * @param endOfInput True if the bytes after the last newline form a final line.
+     * @return The offset of the first byte that was not consumed.
+     * @throws ProcessingException If a line is malformed.
+     */
+    public int parseLines(byte[] buf, int from, int to, boolean endOfInput, QuoteSink sink)
+            throws ProcessingException {
+        return parseLines(buf, from, to, endOfInput, sink, null);
+    }
+
+    /**
+     * Parses every complete line in buf[from, to), passing malformed lines to
+     * rejects.
+     *
+     * @param rejects Receives the malformed lines, or null to throw on the first.
+     * @return The offset of the first byte that was not consumed.
+     */
+    public int parseLines(byte[] buf, int from, int to, boolean endOfInput, QuoteSink sink, RejectSink rejects)
+            throws ProcessingException {
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\n') {
+                parseOrReject(buf, lineStart, i, sink, rejects);
+                lineStart = i + 1;
+            }
+        }
+        if (endOfInput && lineStart < to) {
+            parseOrReject(buf, lineStart, to, sink, rejects);
+            lineStart = to;
+        }
+        return lineStart;
+    }
+
+    private void parseOrReject(byte[] buf, int start, int end, QuoteSink sink, RejectSink rejects)
+            throws ProcessingException {
+        if (!parseLine(buf, start, end, sink)) {
+            if (rejects == null) {
+                throw new ProcessingException("Malformed line: " + ascii(buf, start, end - start));
+            }
+            rejects.reject(buf, start, end);
+        }
+    }
+
+    /**
+     * Parses the line in buf[start, end), without its newline. Blank lines are
+     * ignored.
+     *
+     * @return False if the line is malformed.
+     */
+    public boolean parseLine(byte[] buf, int start, int end, QuoteSink sink) {
+        if (end > start && buf[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return true;
+        }
+
+        int field = 0;
+        fieldStart[0] = start;
+        for (int i = start; i < end; i++) {
+            if (buf[i] == ',') {
+                if (field == FIELD_COUNT - 1) {
+                    return false;
+                }
+                fieldEnd[field++] = i;
+                fieldStart[field] = i + 1;
+            }
+        }
+        if (field != FIELD_COUNT - 1) {
+            return false;
+        }
+        fieldEnd[field] = end;
+
+        int year = parseYear(buf, fieldStart[DATE], fieldEnd[DATE]);
+        if (year < 0) {
+            return false;
+        }
+        long volume = parseLong(buf, fieldStart[VOLUME], fieldEnd[VOLUME]);
+        if (volume == Long.MIN_VALUE) {
+            return false;
+        }
+        double close = parseDouble(buf, fieldStart[CLOSE], fieldEnd[CLOSE]);
+        if (Double.isNaN(close)) {
+            return false;
+        }
+        this.line = buf;
+        this.year = year;
+        sink.quote(year, close, volume, buf, fieldStart[TICKER], fieldEnd[TICKER] - fieldStart[TICKER]);
+        return true;
+    }
+
+    /**
+     * Decodes the full date of the quote being passed to the sink. Only valid
+     * while the sink is being called; sinks that just need the year don't pay
+     * for it.
+     *
+     * @return The date as yyyymmdd, with month and day 0 if the date is not
+     *         in yyyy-mm-dd form.
+     */
+    public int date() {
+        int start = fieldStart[DATE];
+        if (fieldEnd[DATE] - start != 10 || line[start + 4] != '-' || line[start + 7] != '-') {
+            return year * 10000;
+        }
+        int month = digit(line[start + 5]) * 10 + digit(line[start + 6]);
+        int day = digit(line[start + 8]) * 10 + digit(line[start + 9]);
+        if (month < 0 || day < 0) {
+            return year * 10000;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    private static int digit(byte b) {
+        return isDigit(b) ? b - '0' : -100;
+    }
+
+    /**
+     * Decodes an ASCII field, e.g. a ticker symbol, into a String.
+     */
+    public static String ascii(byte[] buf, int start, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (buf[start + i] & 0xff);
+        }
+        return new String(chars);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * @return The year in the first four characters of a date, or -1.
+     */
+    static int parseYear(byte[] buf, int start, int end) {
+        if (end - start < 4) {
+            return -1;
+        }
+        int year = 0;
+        for (int i = start; i < start + 4; i++) {
+            if (!isDigit(buf[i])) {
+                return -1;
+            }
+            year = year * 10 + (buf[i] - '0');
+        }
+        return year;
+    }
+
+    /**
+     * @return The value, or Long.MIN_VALUE if the field is not a valid long.
+     */
+    static long parseLong(byte[] buf, int start, int end) {
+        boolean negative = start < end && buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            if (!isDigit(buf[i])) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + (buf[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes plain decimals with up to 15 significant digits directly. Because
+     * both the digits and the power of ten are exact doubles, the quotient is
+     * correctly rounded and equals what Double.parseDouble returns. Anything
+     * else falls back to Double.parseDouble.
+     *
+     * @return The value, or NaN if the field is not a valid number.
+     */
+    static double parseDouble(byte[] buf, int start, int end) {
+        boolean negative = start < end && buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        boolean sawDigit = false;
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (isDigit(b)) {
+                sawDigit = true;
+                if (digits > 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction >= 0) {
+                    fraction++;
+                }
+                if (digits > MAX_FAST_DIGITS || fraction >= POWERS_OF_TEN.length) {
+                    return parseDoubleSlow(buf, start, end);
+                }
+            } else if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                return parseDoubleSlow(buf, start, end);
+            }
+        }
+        if (!sawDigit) {
+            return Double.NaN;
+        }
+        double value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static double parseDoubleSlow(byte[] buf, int start, int end) {
+        try {
+            return Double.parseDouble(ascii(buf, start, end - start));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
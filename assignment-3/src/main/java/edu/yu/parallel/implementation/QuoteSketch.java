@@ -0,0 +1,65 @@
+package edu.yu.parallel.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import edu.yu.parallel.YearSketch;
+
+/**
+ * Sketches of one year's quotes: a {@link HyperLogLog} of the tickers and a
+ * {@link KllSketch} of the closes. Both take fixed space however many quotes
+ * are added, merge in any order, and can be written to and read back from a
+ * stream.
+ */
+public class QuoteSketch implements YearSketch {
+    private final HyperLogLog tickers;
+    private final KllSketch closes;
+
+    public QuoteSketch() {
+        this(new HyperLogLog(), new KllSketch());
+    }
+
+    private QuoteSketch(HyperLogLog tickers, KllSketch closes) {
+        this.tickers = tickers;
+        this.closes = closes;
+    }
+
+    public void add(byte[] line, int tickerStart, int tickerLength, double close) {
+        tickers.add(line, tickerStart, tickerLength);
+        closes.add(close);
+    }
+
+    /**
+     * @return this
+     */
+    public QuoteSketch merge(QuoteSketch other) {
+        tickers.merge(other.tickers);
+        closes.merge(other.closes);
+        return this;
+    }
+
+    @Override
+    public long getQuoteCount() {
+        return closes.getCount();
+    }
+
+    @Override
+    public long getDistinctTickers() {
+        return tickers.estimate();
+    }
+
+    @Override
+    public double getClosePercentile(double percentile) {
+        return closes.quantile(percentile / 100);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        tickers.writeTo(out);
+        closes.writeTo(out);
+    }
+
+    public static QuoteSketch readFrom(DataInput in) throws IOException {
+        return new QuoteSketch(HyperLogLog.readFrom(in), KllSketch.readFrom(in));
+    }
+}
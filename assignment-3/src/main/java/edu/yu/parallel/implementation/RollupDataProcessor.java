@@ -0,0 +1,89 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.StreamSupport;
+
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RollupProcessor;
+import edu.yu.parallel.TickerStats;
+import edu.yu.parallel.TimeBucketing;
+
+/**
+ * Computes the highs of every period for several bucketings, e.g. months and
+ * quarters, in one parallel pass, instead of one pass per granularity. The
+ * file is streamed as line-aligned slices from a {@link LineSpliterator};
+ * each fork/join leaf fills its own {@link RollupsByBucket}, and the
+ * collector is ordered, so partials combine in file order and ties resolve
+ * as in {@link SequentialDataProcessor}. With {@link edu.yu.parallel.TimeBucket#YEAR}
+ * the result is the same as processFile of a DataProcessor.
+ * <p>
+ * A compressed file can't be mapped and split, so it is parsed as a stream
+ * on the calling thread.
+ */
+public class RollupDataProcessor implements RollupProcessor {
+    private final int batchSize;
+    private final SliceParsers parsers;
+
+    public RollupDataProcessor() {
+        this(ParallelStreamsDataProcessor.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize The number of bytes in each slice the stream hands to a worker.
+     */
+    public RollupDataProcessor(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        int blockSize = Math.min(batchSize, QuoteParser.DEFAULT_BLOCK_SIZE);
+        this.parsers = new SliceParsers(blockSize);
+    }
+
+    @Override
+    public Map<TimeBucketing, Map<Integer, TickerStats>> processFile(String filePath,
+            List<? extends TimeBucketing> bucketings) throws IOException, ProcessingException {
+        if (bucketings.isEmpty()) {
+            throw new IllegalArgumentException("At least one bucketing is needed");
+        }
+        TickerDictionary dictionary = new TickerDictionary();
+        if (CompressedInput.isCompressed(filePath)) {
+            RollupsByBucket rollups = new RollupsByBucket(dictionary, bucketings);
+            try (InputStream in = CompressedInput.open(filePath)) {
+                QuoteParser parser = parsers.get();
+                parser.parse(in, true, sink(parser, rollups));
+            }
+            return rollups.toMap();
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = ParallelStreamsDataProcessor.firstLineStart(channel, size);
+            return StreamSupport.stream(new LineSpliterator(channel, start, size, batchSize), true)
+                    .collect(Collector.of(() -> new RollupsByBucket(dictionary, bucketings), this::parse,
+                            RollupsByBucket::merge, RollupsByBucket::toMap));
+        } catch (RuntimeException e) {
+            throw SliceParsers.rethrow(e);
+        }
+    }
+
+    private void parse(RollupsByBucket rollups, ByteBuffer slice) {
+        parsers.parse(slice, sink(parsers.get(), rollups));
+    }
+
+    /**
+     * @return A sink that adds the quotes the parser decodes to the rollups,
+     *         by the full date of each.
+     */
+    private static QuoteParser.QuoteSink sink(QuoteParser parser, RollupsByBucket rollups) {
+        return (year, close, volume, line, tickerStart, tickerLength) -> rollups.quote(parser.date(), close, volume,
+                line, tickerStart, tickerLength);
+    }
+}
@@ -0,0 +1,94 @@
+package edu.yu.parallel.implementation;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.yu.parallel.TickerStats;
+import edu.yu.parallel.TimeBucketing;
+
+/**
+ * {@link TickerStatsAccumulator}s by bucket for several bucketings at once,
+ * filled from one pass over the quotes. Quote files are mostly sorted by
+ * date, so each bucketing remembers the accumulator of the last date it saw
+ * and only computes a bucket and looks it up when the date changes. The
+ * ticker of a quote is looked up in the dictionary at most once for all the
+ * bucketings, when the first of their accumulators would record it.
+ * <p>
+ * Like the accumulators it holds, a table is not thread safe. Each worker
+ * fills its own and the partials are combined with {@link #merge} in file
+ * order, so ties resolve as in a sequential scan.
+ */
+final class RollupsByBucket {
+    private final TickerDictionary dictionary;
+    private final Rollup[] rollups;
+
+    private static final class Rollup {
+        final TimeBucketing bucketing;
+        final Map<Integer, TickerStatsAccumulator> buckets = new HashMap<>();
+        int lastDate = -1;
+        TickerStatsAccumulator last;
+
+        Rollup(TimeBucketing bucketing) {
+            this.bucketing = bucketing;
+        }
+
+        TickerStatsAccumulator get(int bucket, TickerDictionary dictionary) {
+            TickerStatsAccumulator stats = buckets.get(bucket);
+            if (stats == null) {
+                stats = new TickerStatsAccumulator(dictionary);
+                buckets.put(bucket, stats);
+            }
+            return stats;
+        }
+    }
+
+    RollupsByBucket(TickerDictionary dictionary, List<? extends TimeBucketing> bucketings) {
+        this.dictionary = dictionary;
+        this.rollups = new Rollup[bucketings.size()];
+        for (int i = 0; i < rollups.length; i++) {
+            rollups[i] = new Rollup(bucketings.get(i));
+        }
+    }
+
+    /**
+     * @param date The date of the quote as yyyymmdd, see {@link QuoteParser#date()}.
+     */
+    void quote(int date, double close, long volume, byte[] line, int tickerStart, int tickerLength) {
+        int tickerId = -1;
+        for (Rollup rollup : rollups) {
+            if (date != rollup.lastDate) {
+                rollup.last = rollup.get(rollup.bucketing.bucket(date), dictionary);
+                rollup.lastDate = date;
+            }
+            if (tickerId < 0 && rollup.last.isCandidate(close, volume)) {
+                tickerId = dictionary.id(line, tickerStart, tickerLength);
+            }
+            // Only reads the id if the quote is a candidate, and then it has been looked up
+            rollup.last.accept(tickerId, close, volume);
+        }
+    }
+
+    /**
+     * Folds tables that cover a later part of the input into this one.
+     *
+     * @return this
+     */
+    RollupsByBucket merge(RollupsByBucket other) {
+        for (int i = 0; i < rollups.length; i++) {
+            for (Map.Entry<Integer, TickerStatsAccumulator> entry : other.rollups[i].buckets.entrySet()) {
+                rollups[i].get(entry.getKey(), dictionary).merge(entry.getValue());
+            }
+        }
+        return this;
+    }
+
+    Map<TimeBucketing, Map<Integer, TickerStats>> toMap() {
+        Map<TimeBucketing, Map<Integer, TickerStats>> map = new LinkedHashMap<>();
+        for (Rollup rollup : rollups) {
+            map.put(rollup.bucketing, new HashMap<>(rollup.buckets));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,160 @@
+package edu.yu.parallel.implementation;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.yu.parallel.RunMetrics;
+
+/**
+ * Collects the {@link RunMetrics} of one processFile run from the threads
+ * doing it. Workers report once per block or chunk, not per row, into
+ * LongAdders, so recording costs nothing measurable on the hot path. The
+ * totals so far are visible through the processor's
+ * {@link ProcessorMonitorMXBean} while the run goes on, and
+ * {@link #finish()} also commits a {@link ProcessFileEvent} to JFR.
+ * <p>
+ * Allocation is estimated from the JVM's per-thread allocation counters, so
+ * each thread reports the bytes it allocated for the run itself.
+ */
+final class RunRecorder {
+    private static final com.sun.management.ThreadMXBean threads = allocationCounters();
+
+    private final String processor;
+    private final String file;
+    private final ProcessorMonitor monitor;
+    private final long startNanos = System.nanoTime();
+    private final ProcessFileEvent event = new ProcessFileEvent();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder rowsParsed = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder mergeNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final Map<String, LongAdder> rowsByWorker = new ConcurrentHashMap<>();
+
+    RunRecorder(Object processor, String file) {
+        this.processor = processor.getClass().getSimpleName();
+        this.file = file;
+        this.monitor = ProcessorMonitor.of(this.processor);
+        monitor.started(this);
+        event.begin();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounters() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads =
+                        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        } catch (LinkageError e) {
+            // Not a HotSpot JVM
+        }
+        return null;
+    }
+
+    /**
+     * @return The bytes the current thread has allocated so far, or 0 if the
+     *         JVM does not count them.
+     */
+    static long allocatedBytes() {
+        return threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    void read(long bytes, long nanos) {
+        bytesRead.add(bytes);
+        readNanos.add(nanos);
+    }
+
+    /**
+     * @return An event to pass to {@link #parsed}, started now.
+     */
+    ParseChunkEvent beginChunk() {
+        ParseChunkEvent event = new ParseChunkEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a part of the file parsed by the current thread.
+     *
+     * @param event The event from {@link #beginChunk()} when the part was started.
+     */
+    void parsed(ParseChunkEvent event, long bytes, long rows, long nanos) {
+        rowsParsed.add(rows);
+        parseNanos.add(nanos);
+        rowsByWorker.computeIfAbsent(Thread.currentThread().getName(), name -> new LongAdder()).add(rows);
+        event.end();
+        if (event.shouldCommit()) {
+            event.processor = processor;
+            event.bytes = bytes;
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records bytes that were parsed without a separate read, e.g. from a mapped file.
+     */
+    void scanned(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    void merged(long nanos) {
+        mergeNanos.add(nanos);
+    }
+
+    /**
+     * @param bytes Bytes allocated by one of the run's threads.
+     */
+    void allocated(long bytes) {
+        allocatedBytes.add(bytes);
+    }
+
+    /**
+     * @return The metrics so far.
+     */
+    RunMetrics snapshot() {
+        Map<String, Long> rows = new HashMap<>();
+        rowsByWorker.forEach((worker, count) -> rows.put(worker, count.sum()));
+        return new RunMetrics(processor, file, bytesRead.sum(), rowsParsed.sum(), readNanos.sum(),
+                parseNanos.sum(), mergeNanos.sum(), System.nanoTime() - startNanos, allocatedBytes.sum(), rows);
+    }
+
+    /**
+     * Ends the run: reports it to JFR and the MBean.
+     *
+     * @return The metrics of the run.
+     */
+    RunMetrics finish() {
+        RunMetrics metrics = snapshot();
+        event.end();
+        if (event.shouldCommit()) {
+            event.processor = processor;
+            event.file = file;
+            event.bytesRead = metrics.getBytesRead();
+            event.rowsParsed = metrics.getRowsParsed();
+            event.readNanos = metrics.getReadNanos();
+            event.parseNanos = metrics.getParseNanos();
+            event.mergeNanos = metrics.getMergeNanos();
+            event.allocatedBytes = metrics.getAllocatedBytes();
+            event.workers = metrics.getRowsByWorker().size();
+            event.workerSkew = metrics.getWorkerSkew();
+            event.commit();
+        }
+        monitor.finished(this, metrics);
+        return metrics;
+    }
+
+    /**
+     * Ends a run that failed.
+     */
+    void abandon() {
+        monitor.abandoned(this);
+    }
+}
@@ -0,0 +1,42 @@
+package edu.yu.parallel.implementation;
+
+/**
+ * The column reductions as plain loops.
+ */
+final class ScalarColumnReductions extends ColumnReductions {
+    @Override
+    public int firstOutside(int[] values, int from, int to, int low, int high) {
+        for (int i = from; i < to; i++) {
+            if (values[i] < low || values[i] >= high) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    @Override
+    public int argMax(double[] values, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        int at = -1;
+        for (int i = from; i < to; i++) {
+            if (values[i] > max) {
+                max = values[i];
+                at = i;
+            }
+        }
+        return at;
+    }
+
+    @Override
+    public int argMax(long[] values, int from, int to) {
+        long max = Long.MIN_VALUE;
+        int at = -1;
+        for (int i = from; i < to; i++) {
+            if (values[i] > max) {
+                max = values[i];
+                at = i;
+            }
+        }
+        return at;
+    }
+}
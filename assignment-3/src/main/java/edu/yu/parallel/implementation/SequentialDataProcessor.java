@@ -1,20 +1,59 @@
 package edu.yu.parallel.implementation;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 import edu.yu.parallel.DataProcessor;
 import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunResult;
 import edu.yu.parallel.TickerStats;
 
 public class SequentialDataProcessor implements DataProcessor {
+    private final int topK;
+
+    public SequentialDataProcessor() {
+        this(0);
+    }
+
+    /**
+     * @param topK The number of top tickers by close and by volume to rank
+     *             each year, see {@link edu.yu.parallel.TopTickerStats}, or 0 for none.
+     */
+    public SequentialDataProcessor(int topK) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        this.topK = topK;
+    }
 
     @Override
     public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
-        // TBD: Implement this method
-        // Read the file at the given path and process it sequentially
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    @Override
+    public RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
         // Note: You may NOT use the java.nio package for this implementation
         // Note: You may NOT use the java.util.stream package for this implementation
-        throw new ProcessingException("Not yet implemented");
+        RunRecorder recorder = new RunRecorder(this, filePath);
+        long allocated = RunRecorder.allocatedBytes();
+        long parseStart = System.nanoTime();
+        ParseChunkEvent event = recorder.beginChunk();
+        TickerStatsByYear stats = new TickerStatsByYear(new TickerDictionary(), topK);
+        try (InputStream in = CompressedInput.open(filePath)) {
+            new QuoteParser().parse(in, true, stats);
+        } catch (IOException | ProcessingException | RuntimeException e) {
+            recorder.abandon();
+            throw e;
+        }
+        // Reading and parsing interleave, so it all counts as parse time
+        long bytes = new File(filePath).length();
+        recorder.scanned(bytes);
+        recorder.parsed(event, bytes, stats.getQuoteCount(), System.nanoTime() - parseStart);
+        recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+        Map<Integer, TickerStats> result = stats.toMap();
+        return new RunResult(result, recorder.finish());
     }
 }
@@ -0,0 +1,152 @@
+package edu.yu.parallel.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.StreamSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.YearSketch;
+import edu.yu.parallel.YearSketchProcessor;
+
+/**
+ * Sketches the distinct tickers and the close distribution of each year in one
+ * parallel pass over a {@link LineSpliterator}, merging the per-leaf
+ * {@link SketchesByYear} in the collector's combiner.
+ * <p>
+ * The path may also be a directory or glob, as for
+ * {@link MultiFileDataProcessor}; the sketches of the files are merged. With a
+ * cache directory, the sketches of each file are stored there, keyed by its
+ * path, size and modification time, so re-running a multi-file analysis only
+ * reads the files that changed.
+ */
+public class SketchDataProcessor implements YearSketchProcessor {
+    private final static Logger logger = LogManager.getLogger(SketchDataProcessor.class);
+    static final String SIDECAR_SUFFIX = ".snpsketch";
+    private static final int MAGIC = 0x534e5053; // "SNPS"
+
+    private final Path cacheDirectory;
+    private final SliceParsers parsers = new SliceParsers(QuoteParser.DEFAULT_BLOCK_SIZE);
+
+    public SketchDataProcessor() {
+        this(null);
+    }
+
+    /**
+     * @param cacheDirectory The directory to keep per-file sketches in, or null for none.
+     */
+    public SketchDataProcessor(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory == null ? null : Path.of(cacheDirectory);
+    }
+
+    @Override
+    public Map<Integer, YearSketch> processFile(String filePath) throws IOException, ProcessingException {
+        if (!MultiFileDataProcessor.isMultiFile(filePath)) {
+            return sketch(Path.of(filePath)).toMap();
+        }
+        List<Path> files = MultiFileDataProcessor.listFiles(filePath);
+        if (files.isEmpty()) {
+            throw new ProcessingException("No quote files match " + filePath);
+        }
+        SketchesByYear merged = new SketchesByYear();
+        for (Path file : files) {
+            merged.merge(sketch(file));
+        }
+        return merged.toMap();
+    }
+
+    /**
+     * @return The sketches of one file, from the cache if they are there.
+     */
+    public SketchesByYear sketch(Path file) throws IOException, ProcessingException {
+        Path sidecar = null;
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        String path = file.toAbsolutePath().toString();
+        if (cacheDirectory != null) {
+            sidecar = cacheDirectory.resolve(CachingDataProcessor.sidecarName(path) + SIDECAR_SUFFIX);
+            SketchesByYear cached = read(sidecar, path, size, modified);
+            if (cached != null) {
+                logger.debug("Sketch cache hit for {}", file);
+                return cached;
+            }
+        }
+
+        SketchesByYear sketches = scan(file);
+        if (sidecar != null) {
+            write(sidecar, path, size, modified, sketches);
+        }
+        return sketches;
+    }
+
+    private SketchesByYear scan(Path file) throws IOException, ProcessingException {
+        if (CompressedInput.isCompressed(file.toString())) {
+            SketchesByYear sketches = new SketchesByYear();
+            try (InputStream in = CompressedInput.open(file.toString())) {
+                parsers.get().parse(in, true, sketches);
+            }
+            return sketches;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = ParallelStreamsDataProcessor.firstLineStart(channel, size);
+            LineSpliterator slices = new LineSpliterator(channel, start, size,
+                    ParallelStreamsDataProcessor.DEFAULT_BATCH_SIZE);
+            return StreamSupport.stream(slices, true).collect(Collector.of(SketchesByYear::new,
+                    (SketchesByYear sketches, ByteBuffer slice) -> parsers.parse(slice, sketches),
+                    SketchesByYear::merge, Collector.Characteristics.IDENTITY_FINISH,
+                    Collector.Characteristics.UNORDERED));
+        } catch (RuntimeException e) {
+            throw SliceParsers.rethrow(e);
+        }
+    }
+
+    private static SketchesByYear read(Path sidecar, String path, long size, long modified) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(path) || in.readLong() != size
+                    || in.readLong() != modified) {
+                return null;
+            }
+            return SketchesByYear.readFrom(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable sketch file {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path sidecar, String path, long size, long modified, SketchesByYear sketches)
+            throws IOException {
+        Files.createDirectories(cacheDirectory);
+        Path temp = Files.createTempFile(cacheDirectory, "snpsketch", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(path);
+                out.writeLong(size);
+                out.writeLong(modified);
+                sketches.writeTo(out);
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package edu.yu.parallel.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.yu.parallel.YearSketch;
+
+/**
+ * {@link QuoteSketch}es by year. A file rarely has more than a few dozen
+ * years and quotes tend to come in date order, so the sketch of the last
+ * year seen is kept at hand and the map is only consulted when the year
+ * changes.
+ * <p>
+ * Not thread safe; each worker fills its own and the partials are combined
+ * with {@link #merge}, in any order.
+ */
+public class SketchesByYear implements QuoteParser.QuoteSink {
+    private final Map<Integer, QuoteSketch> years = new HashMap<>();
+    private int lastYear;
+    private QuoteSketch last;
+
+    @Override
+    public void quote(int year, double close, long volume, byte[] line, int tickerStart, int tickerLength) {
+        if (last == null || year != lastYear) {
+            last = years.computeIfAbsent(year, y -> new QuoteSketch());
+            lastYear = year;
+        }
+        last.add(line, tickerStart, tickerLength, close);
+    }
+
+    /**
+     * @return this
+     */
+    public SketchesByYear merge(SketchesByYear other) {
+        for (Map.Entry<Integer, QuoteSketch> entry : other.years.entrySet()) {
+            years.computeIfAbsent(entry.getKey(), y -> new QuoteSketch()).merge(entry.getValue());
+        }
+        return this;
+    }
+
+    public Map<Integer, YearSketch> toMap() {
+        return new HashMap<>(years);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(years.size());
+        for (Map.Entry<Integer, QuoteSketch> entry : years.entrySet()) {
+            out.writeInt(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    public static SketchesByYear readFrom(DataInput in) throws IOException {
+        SketchesByYear sketches = new SketchesByYear();
+        int years = in.readInt();
+        for (int i = 0; i < years; i++) {
+            int year = in.readInt();
+            sketches.years.put(year, QuoteSketch.readFrom(in));
+        }
+        return sketches;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import edu.yu.parallel.ProcessingException;
+
+/**
+ * A {@link QuoteParser} per thread, for the processors that parse slices of
+ * a file in a parallel stream. A stream's accumulator can't throw checked
+ * exceptions, so {@link #parse} carries them out unchecked and
+ * {@link #rethrow} turns them back into what the parser threw.
+ */
+final class SliceParsers {
+    private final ThreadLocal<QuoteParser> parsers;
+
+    /**
+     * Carries a ProcessingException out of a stream.
+     */
+    private static final class ParseFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ParseFailure(ProcessingException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * @param blockSize The size of each parser's block buffer.
+     */
+    SliceParsers(int blockSize) {
+        this.parsers = ThreadLocal.withInitial(() -> new QuoteParser(blockSize));
+    }
+
+    /**
+     * @return The calling thread's parser.
+     */
+    QuoteParser get() {
+        return parsers.get();
+    }
+
+    /**
+     * Parses a slice that starts at a line, with no header, on the calling
+     * thread's parser.
+     */
+    void parse(ByteBuffer slice, QuoteParser.QuoteSink sink) {
+        try {
+            parsers.get().parse(new ByteBufferInputStream(slice), false, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ProcessingException e) {
+            throw new ParseFailure(e);
+        }
+    }
+
+    /**
+     * Throws the exception that {@link #parse} carried out of a stream.
+     *
+     * @return The exception itself, for the caller to throw, if it carries
+     *         none.
+     */
+    static RuntimeException rethrow(RuntimeException e) throws IOException, ProcessingException {
+        if (e instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) e).getCause();
+        }
+        if (e instanceof ParseFailure) {
+            throw (ProcessingException) e.getCause();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,167 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.RunResult;
+import edu.yu.parallel.TickerStats;
+
+/**
+ * DataProcessor for append-only files. It remembers how far into the file it
+ * has read and the per-year accumulators, so each call to processFile only
+ * parses the bytes appended since the previous call.
+ * <p>
+ * A trailing line without a newline is assumed to still be in the middle of
+ * being written and is left for the next refresh. If the file shrinks, or a
+ * different file is passed, the state is reset and the file is read from the
+ * beginning.
+ * <p>
+ * processFile returns the same map on every call for a given file and updates
+ * it in place, so callers must not read it while a refresh is running. Each
+ * block is parsed on its own and only merged in once all its lines parsed,
+ * so a malformed line leaves the map as it was, and the next refresh starts
+ * again at the block holding that line. The metrics of a refresh only count
+ * the bytes and rows it added.
+ */
+public class TailingDataProcessor implements DataProcessor {
+    private final int blockSize;
+    private final int topK;
+
+    private Path path;
+    private long offset;
+    private TickerStatsByYear stats;
+    private Map<Integer, TickerStats> result;
+
+    public TailingDataProcessor() {
+        this(QuoteParser.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize The number of bytes read from the file at a time.
+     */
+    public TailingDataProcessor(int blockSize) {
+        this(blockSize, 0);
+    }
+
+    /**
+     * @param blockSize The number of bytes read from the file at a time.
+     * @param topK      The number of top tickers by close and by volume to rank
+     *                  each year, see {@link edu.yu.parallel.TopTickerStats}, or 0 for none.
+     */
+    public TailingDataProcessor(int blockSize, int topK) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative");
+        }
+        this.blockSize = blockSize;
+        this.topK = topK;
+    }
+
+    @Override
+    public Map<Integer, TickerStats> processFile(String filePath) throws IOException, ProcessingException {
+        return processFileWithMetrics(filePath).getStats();
+    }
+
+    @Override
+    public synchronized RunResult processFileWithMetrics(String filePath) throws IOException, ProcessingException {
+        Path requested = Path.of(filePath).toAbsolutePath();
+        if (!requested.equals(path)) {
+            reset(requested);
+        }
+        RunRecorder recorder = new RunRecorder(this, filePath);
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < offset) {
+                reset(path);
+            }
+            long allocated = RunRecorder.allocatedBytes();
+            long startOffset = offset;
+            long startQuotes = stats.getQuoteCount();
+            long parseStart = System.nanoTime();
+            ParseChunkEvent event = recorder.beginChunk();
+            refresh(channel);
+            recorder.scanned(offset - startOffset);
+            recorder.parsed(event, offset - startOffset, stats.getQuoteCount() - startQuotes,
+                    System.nanoTime() - parseStart);
+            recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+            RunMetrics metrics = recorder.finish();
+            completed = true;
+            return new RunResult(result, metrics);
+        } finally {
+            if (!completed) {
+                recorder.abandon();
+            }
+        }
+    }
+
+    /**
+     * @return The offset of the first byte that has not been processed yet.
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    private void reset(Path newPath) {
+        path = newPath;
+        offset = 0;
+        stats = new TickerStatsByYear(new TickerDictionary(), topK);
+        result = new HashMap<>();
+    }
+
+    private void refresh(FileChannel channel) throws IOException, ProcessingException {
+        QuoteParser parser = new QuoteParser(blockSize);
+        byte[] block = new byte[blockSize];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        int filled = 0;
+        long position = offset;
+        int read;
+        while ((read = channel.read(buffer, position)) > 0) {
+            position += read;
+            filled += read;
+
+            int from = 0;
+            if (offset == 0) {
+                from = QuoteParser.skipHeader(block, 0, filled);
+                if (from < 0) {
+                    from = 0;
+                    block = growIfFull(block, filled);
+                    buffer = ByteBuffer.wrap(block, filled, block.length - filled);
+                    continue;
+                }
+            }
+            // Callers already hold the published map, so a block that fails must leave it untouched
+            TickerStatsByYear parsed = new TickerStatsByYear(stats.getDictionary(), topK);
+            int consumed = parser.parseLines(block, from, filled, false, parsed);
+            stats.merge(parsed);
+            offset += consumed;
+            filled -= consumed;
+            System.arraycopy(block, consumed, block, 0, filled);
+            block = growIfFull(block, filled);
+            buffer = ByteBuffer.wrap(block, filled, block.length - filled);
+        }
+
+        // New years are added to the published map; existing ones were updated in place
+        for (Map.Entry<Integer, TickerStats> entry : stats.toMap().entrySet()) {
+            result.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static byte[] growIfFull(byte[] block, int filled) {
+        if (filled == block.length) {
+            byte[] grown = new byte[block.length * 2];
+            System.arraycopy(block, 0, grown, 0, filled);
+            return grown;
+        }
+        return block;
+    }
+}
@@ -0,0 +1,84 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Collector;
+import java.util.stream.StreamSupport;
+
+import edu.yu.parallel.ProcessingException;
+import edu.yu.parallel.TickerCube;
+import edu.yu.parallel.TickerCubeProcessor;
+
+/**
+ * Builds the per-(year, ticker) cube in one parallel pass. The file is
+ * streamed as line-aligned slices from a {@link LineSpliterator}; each
+ * fork/join leaf fills its own {@link TickerYearTable} and the tables are
+ * merged by the collector's combiner. All tables of a run share one
+ * {@link TickerDictionary}, so merging them needs no id translation.
+ */
+public class TickerCubeDataProcessor implements TickerCubeProcessor {
+    private final int batchSize;
+    private final SliceParsers parsers;
+
+    public TickerCubeDataProcessor() {
+        this(ParallelStreamsDataProcessor.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize The number of bytes in each slice the stream hands to a worker.
+     */
+    public TickerCubeDataProcessor(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        int blockSize = Math.min(batchSize, QuoteParser.DEFAULT_BLOCK_SIZE);
+        this.parsers = new SliceParsers(blockSize);
+    }
+
+    /**
+     * @return The cube, with the metrics of the run that built it.
+     */
+    @Override
+    public TickerCube processFile(String filePath) throws IOException, ProcessingException {
+        RunRecorder recorder = new RunRecorder(this, filePath);
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = ParallelStreamsDataProcessor.firstLineStart(channel, size);
+            TickerDictionary dictionary = new TickerDictionary();
+            TickerYearTable cube = StreamSupport.stream(new LineSpliterator(channel, start, size, batchSize), true)
+                    .collect(Collector.of(() -> new TickerYearTable(dictionary),
+                            (table, slice) -> parse(recorder, table, slice), (left, right) -> {
+                                long mergeStart = System.nanoTime();
+                                left.merge(right);
+                                recorder.merged(System.nanoTime() - mergeStart);
+                                return left;
+                            }, Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED));
+            cube.setMetrics(recorder.finish());
+            completed = true;
+            return cube;
+        } catch (RuntimeException e) {
+            throw SliceParsers.rethrow(e);
+        } finally {
+            if (!completed) {
+                recorder.abandon();
+            }
+        }
+    }
+
+    private void parse(RunRecorder recorder, TickerYearTable table, ByteBuffer slice) {
+        long allocated = RunRecorder.allocatedBytes();
+        long parseStart = System.nanoTime();
+        ParseChunkEvent event = recorder.beginChunk();
+        long bytes = slice.remaining();
+        long quotes = table.getQuoteCount();
+        parsers.parse(slice, table);
+        recorder.scanned(bytes);
+        recorder.parsed(event, bytes, table.getQuoteCount() - quotes, System.nanoTime() - parseStart);
+        recorder.allocated(RunRecorder.allocatedBytes() - allocated);
+    }
+}
@@ -0,0 +1,158 @@
+package edu.yu.parallel.implementation;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Append-only dictionary that assigns dense int ids, starting at 0, to ticker
+ * symbols, so that accumulators can track tickers as ints and only resolve
+ * names when the results are read.
+ * <p>
+ * Lookups of known tickers take the raw bytes of a line and neither lock nor
+ * allocate: they probe an open-addressing table whose slots are published
+ * with volatile writes after the name they point to. Only adding a ticker
+ * takes a lock. Ids are never reused or changed, so a dictionary can be
+ * shared by all the workers of a run. It does not use java.nio, so the
+ * java.io-only processors can use it.
+ */
+public final class TickerDictionary {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final class Table {
+        // id + 1 of the ticker in each slot, 0 if empty
+        final AtomicIntegerArray slots;
+        final byte[][] names;
+        final String[] strings;
+
+        Table(int capacity, byte[][] names, String[] strings) {
+            this.slots = new AtomicIntegerArray(capacity);
+            this.names = Arrays.copyOf(names, capacity / 2);
+            this.strings = Arrays.copyOf(strings, capacity / 2);
+        }
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY, new byte[0][], new String[0]);
+    private volatile int size;
+
+    /**
+     * @return The id of the ticker in line[start, start + length), added if new.
+     */
+    public int id(byte[] line, int start, int length) {
+        int hash = hash(line, start, length);
+        Table t = table;
+        int mask = t.slots.length() - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = t.slots.get(slot);
+            if (entry == 0) {
+                return add(Arrays.copyOfRange(line, start, start + length), hash);
+            }
+            byte[] name = t.names[entry - 1];
+            if (Arrays.equals(name, 0, name.length, line, start, start + length)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * @return The id of the ticker, added if new.
+     */
+    public int id(String ticker) {
+        int id = find(ticker);
+        if (id >= 0) {
+            return id;
+        }
+        byte[] name = new byte[ticker.length()];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = (byte) ticker.charAt(i);
+        }
+        return add(name, hash(name, 0, name.length));
+    }
+
+    /**
+     * @return The id of the ticker, or -1 if it is not in the dictionary.
+     */
+    public int find(String ticker) {
+        int hash = 1;
+        for (int i = 0; i < ticker.length(); i++) {
+            hash = 31 * hash + (byte) ticker.charAt(i);
+        }
+        Table t = table;
+        int mask = t.slots.length() - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = t.slots.get(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            if (ticker.equals(t.strings[entry - 1])) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * @return The ticker with the given id.
+     */
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown ticker id " + id);
+        }
+        return table.strings[id];
+    }
+
+    /**
+     * @return The number of tickers in the dictionary, which is one more than the highest id.
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int add(byte[] name, int hash) {
+        // Another thread may have added it since the caller looked
+        Table t = table;
+        int mask = t.slots.length() - 1;
+        int slot = hash & mask;
+        for (int entry; (entry = t.slots.get(slot)) != 0; slot = (slot + 1) & mask) {
+            if (Arrays.equals(t.names[entry - 1], name)) {
+                return entry - 1;
+            }
+        }
+
+        int id = size;
+        if (id == t.names.length) {
+            t = grow(t);
+            mask = t.slots.length() - 1;
+            slot = hash & mask;
+            while (t.slots.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        t.names[id] = name;
+        t.strings[id] = QuoteParser.ascii(name, 0, name.length);
+        // Count the id before its slot makes it visible, so name() accepts every id a lookup returns
+        size = id + 1;
+        t.slots.set(slot, id + 1);
+        return id;
+    }
+
+    private Table grow(Table old) {
+        Table grown = new Table(old.slots.length() * 2, old.names, old.strings);
+        int mask = grown.slots.length() - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(grown.names[id], 0, grown.names[id].length) & mask;
+            while (grown.slots.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown.slots.set(slot, id + 1);
+        }
+        table = grown;
+        return grown;
+    }
+
+    private static int hash(byte[] bytes, int start, int length) {
+        int hash = 1;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,294 @@
+package edu.yu.parallel.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import edu.yu.parallel.TopTickerStats;
+
+/**
+ * Mutable TickerStats for a single year. The highs and the count are kept in
+ * primitive fields and tickers are held as ids in a {@link TickerDictionary};
+ * names are only looked up when the stats are read, e.g. by Summary().
+ * Accumulators created with a K also keep the {@link TopTickers} by close and
+ * by volume; a quote that can't make either top K costs two comparisons more.
+ * <p>
+ * Accumulators are not thread safe. Workers each fill their own and combine
+ * them with {@link #merge}, which is associative, so the same accumulator can
+ * back fork/join tasks, parallel-stream collectors and chunked readers.
+ * Ties are resolved in favor of the quote seen first, so partials must be
+ * merged in file order (this = earlier, other = later) for the result to
+ * match a sequential scan exactly.
+ * <p>
+ * The highs and the count are only read and written through a few
+ * package-private methods, so that {@link PaddedTickerStatsAccumulator} can
+ * keep them in fields of its own between padding.
+ */
+public class TickerStatsAccumulator implements TopTickerStats {
+    static final int NO_TICKER = -1;
+
+    private final TickerDictionary dictionary;
+    private int highestCloseTicker = NO_TICKER;
+    private double highestClose = Double.NEGATIVE_INFINITY;
+    private int highestVolumeTicker = NO_TICKER;
+    private long highestVolume = Long.MIN_VALUE;
+    private int quoteCount;
+    private final TopTickers topCloses;
+    private final TopTickers topVolumes;
+
+    /**
+     * @param dictionary The dictionary the ticker ids refer to, usually shared
+     *                   by all the accumulators of a run.
+     */
+    public TickerStatsAccumulator(TickerDictionary dictionary) {
+        this(dictionary, 0);
+    }
+
+    /**
+     * @param dictionary The dictionary the ticker ids refer to.
+     * @param k          The number of top tickers to keep, or 0 for none.
+     */
+    public TickerStatsAccumulator(TickerDictionary dictionary, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        this.dictionary = dictionary;
+        this.topCloses = k == 0 ? null : new TopTickers(k);
+        this.topVolumes = k == 0 ? null : new TopTickers(k);
+    }
+
+    /**
+     * Creates an accumulator that starts out with the given stats, e.g. ones
+     * read back from a cache.
+     */
+    public TickerStatsAccumulator(TickerDictionary dictionary, String highestCloseTicker, double highestClose,
+            String highestVolumeTicker, long highestVolume, int quoteCount) {
+        this(dictionary);
+        this.highestCloseTicker = highestCloseTicker == null ? NO_TICKER : dictionary.id(highestCloseTicker);
+        this.highestClose = highestClose;
+        this.highestVolumeTicker = highestVolumeTicker == null ? NO_TICKER : dictionary.id(highestVolumeTicker);
+        this.highestVolume = highestVolume;
+        this.quoteCount = quoteCount;
+    }
+
+    public TickerDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public void accept(String ticker, double close, long volume) {
+        if (isCandidate(close, volume)) {
+            record(dictionary.id(ticker), close, volume);
+        }
+        count(1);
+    }
+
+    /**
+     * Same as {@link #accept(String, double, long)} for a ticker id from this
+     * accumulator's dictionary.
+     */
+    public void accept(int tickerId, double close, long volume) {
+        if (isCandidate(close, volume)) {
+            record(tickerId, close, volume);
+        }
+        count(1);
+    }
+
+    /**
+     * Same as {@link #accept(String, double, long)}, but only looks the ticker
+     * up when the quote sets a new high.
+     */
+    public void accept(byte[] line, int tickerStart, int tickerLength, double close, long volume) {
+        if (isCandidate(close, volume)) {
+            record(dictionary.id(line, tickerStart, tickerLength), close, volume);
+        }
+        count(1);
+    }
+
+    /**
+     * Folds in a run of quotes that follows the ones seen so far, given only
+     * its highest close and highest volume, each with the ticker of the first
+     * quote that reached it, and its number of quotes. An accumulator that
+     * ranks top tickers needs every quote, so it does not take runs.
+     */
+    public void acceptRun(int closeTickerId, double close, int volumeTickerId, long volume, int quotes) {
+        if (topCloses != null) {
+            throw new IllegalStateException("Top tickers can't be ranked from runs");
+        }
+        raiseClose(closeTickerId, close);
+        raiseVolume(volumeTickerId, volume);
+        count(quotes);
+    }
+
+    /**
+     * @return Whether a quote with these values would change the stats, and
+     *         so needs its ticker id.
+     */
+    boolean isCandidate(double close, long volume) {
+        return close > getHighestClose() || volume > getHighestVolume()
+                || (topCloses != null && (topCloses.accepts(TopTickers.sortable(close)) || topVolumes.accepts(volume)));
+    }
+
+    private void record(int tickerId, double close, long volume) {
+        raiseClose(tickerId, close);
+        raiseVolume(tickerId, volume);
+        if (topCloses != null) {
+            long closeKey = TopTickers.sortable(close);
+            int position = getQuoteCount();
+            if (topCloses.accepts(closeKey)) {
+                topCloses.offer(tickerId, closeKey, position);
+            }
+            if (topVolumes.accepts(volume)) {
+                topVolumes.offer(tickerId, volume, position);
+            }
+        }
+    }
+
+    /**
+     * Makes the close the highest, with its ticker, if it is above the highest so far.
+     */
+    void raiseClose(int tickerId, double close) {
+        if (close > highestClose) {
+            highestClose = close;
+            highestCloseTicker = tickerId;
+        }
+    }
+
+    /**
+     * Makes the volume the highest, with its ticker, if it is above the highest so far.
+     */
+    void raiseVolume(int tickerId, long volume) {
+        if (volume > highestVolume) {
+            highestVolume = volume;
+            highestVolumeTicker = tickerId;
+        }
+    }
+
+    /**
+     * Adds quotes to the count.
+     */
+    void count(int quotes) {
+        quoteCount += quotes;
+    }
+
+    /**
+     * @return The id of the ticker with the highest close, or {@link #NO_TICKER}.
+     */
+    int highestCloseTickerId() {
+        return highestCloseTicker;
+    }
+
+    /**
+     * @return The id of the ticker with the highest volume, or {@link #NO_TICKER}.
+     */
+    int highestVolumeTickerId() {
+        return highestVolumeTicker;
+    }
+
+    /**
+     * Folds the stats of a partial that follows this one in the file. Ticker
+     * ids are translated if the other accumulator uses another dictionary.
+     *
+     * @return this
+     */
+    public TickerStatsAccumulator merge(TickerStatsAccumulator other) {
+        if (other.getHighestClose() > getHighestClose()) {
+            raiseClose(translate(other, other.highestCloseTickerId()), other.getHighestClose());
+        }
+        if (other.getHighestVolume() > getHighestVolume()) {
+            raiseVolume(translate(other, other.highestVolumeTickerId()), other.getHighestVolume());
+        }
+        if (topCloses != null && other.topCloses != null) {
+            IntUnaryOperator translation = other.dictionary == dictionary ? null
+                    : id -> dictionary.id(other.dictionary.name(id));
+            topCloses.merge(other.topCloses, getQuoteCount(), translation);
+            topVolumes.merge(other.topVolumes, getQuoteCount(), translation);
+        }
+        count(other.getQuoteCount());
+        return this;
+    }
+
+    private int translate(TickerStatsAccumulator other, int tickerId) {
+        if (other.dictionary == dictionary || tickerId == NO_TICKER) {
+            return tickerId;
+        }
+        return dictionary.id(other.dictionary.name(tickerId));
+    }
+
+    @Override
+    public String getHighestCloseTicker() {
+        int tickerId = highestCloseTickerId();
+        return tickerId == NO_TICKER ? null : dictionary.name(tickerId);
+    }
+
+    @Override
+    public double getHighestClose() {
+        return highestClose;
+    }
+
+    @Override
+    public String getHighestVolumeTicker() {
+        int tickerId = highestVolumeTickerId();
+        return tickerId == NO_TICKER ? null : dictionary.name(tickerId);
+    }
+
+    @Override
+    public long getHighestVolume() {
+        return highestVolume;
+    }
+
+    @Override
+    public int getQuoteCount() {
+        return quoteCount;
+    }
+
+    @Override
+    public int getK() {
+        return topCloses == null ? 0 : topCloses.getK();
+    }
+
+    @Override
+    public List<String> getTopCloseTickers() {
+        return tickers(topCloses);
+    }
+
+    @Override
+    public double[] getTopCloses() {
+        if (topCloses == null) {
+            return new double[0];
+        }
+        int[] ranking = topCloses.ranking();
+        double[] closes = new double[ranking.length];
+        for (int i = 0; i < ranking.length; i++) {
+            closes[i] = TopTickers.unsortable(topCloses.getValue(ranking[i]));
+        }
+        return closes;
+    }
+
+    @Override
+    public List<String> getTopVolumeTickers() {
+        return tickers(topVolumes);
+    }
+
+    @Override
+    public long[] getTopVolumes() {
+        if (topVolumes == null) {
+            return new long[0];
+        }
+        int[] ranking = topVolumes.ranking();
+        long[] volumes = new long[ranking.length];
+        for (int i = 0; i < ranking.length; i++) {
+            volumes[i] = topVolumes.getValue(ranking[i]);
+        }
+        return volumes;
+    }
+
+    private List<String> tickers(TopTickers top) {
+        List<String> tickers = new ArrayList<>();
+        if (top != null) {
+            for (int position : top.ranking()) {
+                tickers.add(dictionary.name(top.getId(position)));
+            }
+        }
+        return tickers;
+    }
+}
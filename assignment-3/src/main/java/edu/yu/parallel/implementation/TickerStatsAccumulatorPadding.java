@@ -0,0 +1,20 @@
+package edu.yu.parallel.implementation;
+
+/**
+ * The two cache lines in front of the fields of a
+ * {@link PaddedTickerStatsAccumulator}. The JVM lays out the fields of a
+ * superclass first, so padding before a class's fields has to come from a
+ * superclass; this one sits between the unused fields of
+ * {@link TickerStatsAccumulator} and the copies in
+ * {@link PaddedTickerStatsFields}. The int fills a gap the JVM would
+ * otherwise fill with an int field of a subclass, ahead of the padding.
+ */
+abstract class TickerStatsAccumulatorPadding extends TickerStatsAccumulator {
+    int p;
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    TickerStatsAccumulatorPadding(TickerDictionary dictionary, int k) {
+        super(dictionary, k);
+    }
+}
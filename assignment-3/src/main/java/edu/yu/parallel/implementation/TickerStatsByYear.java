@@ -0,0 +1,127 @@
+package edu.yu.parallel.implementation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.yu.parallel.TickerStats;
+
+/**
+ * Year-indexed table of {@link TickerStatsAccumulator}s. Years index directly
+ * into an array that grows to cover the years seen, so the hot loop does no
+ * HashMap lookups or boxing; a Map is only built by {@link #toMap()}.
+ * <p>
+ * Like the accumulators it holds, a table is not thread safe. Each worker
+ * fills its own table and the partials are combined with {@link #merge}.
+ * Tables that share a {@link TickerDictionary} merge without translating
+ * ticker ids, so parallel processors create one dictionary per run.
+ */
+public class TickerStatsByYear implements QuoteParser.QuoteSink {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final TickerDictionary dictionary;
+    private final int k;
+    private final boolean padded;
+    private int firstYear;
+    private TickerStatsAccumulator[] years = new TickerStatsAccumulator[0];
+
+    public TickerStatsByYear(TickerDictionary dictionary) {
+        this(dictionary, 0);
+    }
+
+    /**
+     * @param k The number of top tickers by close and by volume each year
+     *          keeps, or 0 for just the highest.
+     */
+    public TickerStatsByYear(TickerDictionary dictionary, int k) {
+        this(dictionary, k, false);
+    }
+
+    /**
+     * @param padded True to pad each accumulator to its own cache lines, see
+     *               {@link PaddedTickerStatsAccumulator}.
+     */
+    public TickerStatsByYear(TickerDictionary dictionary, int k, boolean padded) {
+        this.dictionary = dictionary;
+        this.k = k;
+        this.padded = padded;
+    }
+
+    public TickerDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public void quote(int year, double close, long volume, byte[] line, int tickerStart, int tickerLength) {
+        get(year).accept(line, tickerStart, tickerLength, close, volume);
+    }
+
+    /**
+     * @return The accumulator for the year, created if needed.
+     */
+    public TickerStatsAccumulator get(int year) {
+        int index = year - firstYear;
+        if (index >= 0 && index < years.length) {
+            TickerStatsAccumulator stats = years[index];
+            if (stats != null) {
+                return stats;
+            }
+        }
+        return create(year);
+    }
+
+    private TickerStatsAccumulator create(int year) {
+        if (years.length == 0) {
+            firstYear = year - INITIAL_CAPACITY / 2;
+            years = new TickerStatsAccumulator[INITIAL_CAPACITY];
+        } else if (year < firstYear || year >= firstYear + years.length) {
+            int newFirst = Math.min(firstYear, year);
+            int newLength = Math.max(firstYear + years.length, year + 1) - newFirst;
+            TickerStatsAccumulator[] grown = new TickerStatsAccumulator[Math.max(newLength, years.length * 2)];
+            System.arraycopy(years, 0, grown, firstYear - newFirst, years.length);
+            firstYear = newFirst;
+            years = grown;
+        }
+        TickerStatsAccumulator stats = padded ? new PaddedTickerStatsAccumulator(dictionary, k)
+                : new TickerStatsAccumulator(dictionary, k);
+        years[year - firstYear] = stats;
+        return stats;
+    }
+
+    /**
+     * Folds a table that covers a later part of the input into this one.
+     *
+     * @return this
+     */
+    public TickerStatsByYear merge(TickerStatsByYear other) {
+        for (int i = 0; i < other.years.length; i++) {
+            TickerStatsAccumulator stats = other.years[i];
+            if (stats != null) {
+                get(other.firstYear + i).merge(stats);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return The number of quotes in the table, over all years.
+     */
+    public long getQuoteCount() {
+        long count = 0;
+        for (TickerStatsAccumulator stats : years) {
+            if (stats != null) {
+                count += stats.getQuoteCount();
+            }
+        }
+        return count;
+    }
+
+    public Map<Integer, TickerStats> toMap() {
+        Map<Integer, TickerStats> map = new HashMap<>();
+        for (int i = 0; i < years.length; i++) {
+            if (years[i] != null) {
+                map.put(firstYear + i, years[i]);
+            }
+        }
+        return map;
+    }
+}
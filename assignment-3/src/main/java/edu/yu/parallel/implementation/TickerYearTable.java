@@ -0,0 +1,244 @@
+package edu.yu.parallel.implementation;
+
+import java.util.function.Consumer;
+
+import edu.yu.parallel.RunMetrics;
+import edu.yu.parallel.TickerCube;
+import edu.yu.parallel.TickerYearStats;
+
+/**
+ * Open-addressing table of per-(year, ticker) stats. The key packs the year
+ * and a {@link TickerDictionary} id into a long, and each stat lives in its
+ * own primitive array, so adding a quote neither boxes nor allocates and the
+ * table stays compact with millions of keys. Objects are only created when
+ * the stats are read through {@link TickerCube}.
+ * <p>
+ * A table is not thread safe. Each worker fills its own and the partials are
+ * combined with {@link #merge}; unlike the yearly highs, these stats do not
+ * depend on the order of the quotes, so partials can be merged in any order.
+ */
+public class TickerYearTable implements QuoteParser.QuoteSink, TickerCube {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final TickerDictionary dictionary;
+    private int size;
+    private long quoteCount;
+    private RunMetrics metrics;
+    private int shift;
+    private long[] keys;
+    // A slot is empty while its count is 0
+    private int[] counts;
+    private double[] minCloses;
+    private double[] maxCloses;
+    private double[] closeSums;
+    private long[] volumes;
+
+    public TickerYearTable(TickerDictionary dictionary) {
+        this.dictionary = dictionary;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        keys = new long[capacity];
+        counts = new int[capacity];
+        minCloses = new double[capacity];
+        maxCloses = new double[capacity];
+        closeSums = new double[capacity];
+        volumes = new long[capacity];
+    }
+
+    public TickerDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public long getQuoteCount() {
+        return quoteCount;
+    }
+
+    @Override
+    public RunMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private static long key(int year, int tickerId) {
+        return ((long) year << 32) | (tickerId & 0xffffffffL);
+    }
+
+    /**
+     * @return The slot of the key, or of the empty slot where it belongs.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        // Fibonacci hashing spreads the sequential ids and years over the table
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @Override
+    public void quote(int year, double close, long volume, byte[] line, int tickerStart, int tickerLength) {
+        add(year, dictionary.id(line, tickerStart, tickerLength), close, volume);
+    }
+
+    /**
+     * Adds a quote of the ticker with the given id in this table's dictionary.
+     */
+    public void add(int year, int tickerId, double close, long volume) {
+        add(key(year, tickerId), 1, close, close, close, volume);
+    }
+
+    private void add(long key, int count, double minClose, double maxClose, double closeSum, long volume) {
+        int slot = slot(key);
+        if (counts[slot] == 0) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            minCloses[slot] = minClose;
+            maxCloses[slot] = maxClose;
+            size++;
+        } else {
+            minCloses[slot] = Math.min(minCloses[slot], minClose);
+            maxCloses[slot] = Math.max(maxCloses[slot], maxClose);
+        }
+        counts[slot] += count;
+        quoteCount += count;
+        closeSums[slot] += closeSum;
+        volumes[slot] += volume;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        double[] oldMinCloses = minCloses;
+        double[] oldMaxCloses = maxCloses;
+        double[] oldCloseSums = closeSums;
+        long[] oldVolumes = volumes;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                minCloses[slot] = oldMinCloses[i];
+                maxCloses[slot] = oldMaxCloses[i];
+                closeSums[slot] = oldCloseSums[i];
+                volumes[slot] = oldVolumes[i];
+            }
+        }
+    }
+
+    /**
+     * Folds another table into this one, translating ticker ids if it uses
+     * another dictionary.
+     *
+     * @return this
+     */
+    public TickerYearTable merge(TickerYearTable other) {
+        boolean sameDictionary = other.dictionary == dictionary;
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.counts[i] != 0) {
+                long key = other.keys[i];
+                if (!sameDictionary) {
+                    key = key((int) (key >> 32), dictionary.id(other.dictionary.name((int) key)));
+                }
+                add(key, other.counts[i], other.minCloses[i], other.maxCloses[i], other.closeSums[i],
+                        other.volumes[i]);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TickerYearStats get(int year, String ticker) {
+        int tickerId = dictionary.find(ticker);
+        if (tickerId < 0) {
+            return null;
+        }
+        int slot = slot(key(year, tickerId));
+        return counts[slot] == 0 ? null : cell(slot);
+    }
+
+    @Override
+    public void forEach(Consumer<? super TickerYearStats> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] != 0) {
+                action.accept(cell(i));
+            }
+        }
+    }
+
+    private TickerYearStats cell(int slot) {
+        return new Cell((int) (keys[slot] >> 32), dictionary.name((int) keys[slot]), counts[slot], minCloses[slot],
+                maxCloses[slot], closeSums[slot] / counts[slot], volumes[slot]);
+    }
+
+    private static final class Cell implements TickerYearStats {
+        private final int year;
+        private final String ticker;
+        private final int quoteCount;
+        private final double minClose;
+        private final double maxClose;
+        private final double averageClose;
+        private final long totalVolume;
+
+        Cell(int year, String ticker, int quoteCount, double minClose, double maxClose, double averageClose,
+                long totalVolume) {
+            this.year = year;
+            this.ticker = ticker;
+            this.quoteCount = quoteCount;
+            this.minClose = minClose;
+            this.maxClose = maxClose;
+            this.averageClose = averageClose;
+            this.totalVolume = totalVolume;
+        }
+
+        @Override
+        public int getYear() {
+            return year;
+        }
+
+        @Override
+        public String getTicker() {
+            return ticker;
+        }
+
+        @Override
+        public int getQuoteCount() {
+            return quoteCount;
+        }
+
+        @Override
+        public double getMinClose() {
+            return minClose;
+        }
+
+        @Override
+        public double getMaxClose() {
+            return maxClose;
+        }
+
+        @Override
+        public double getAverageClose() {
+            return averageClose;
+        }
+
+        @Override
+        public long getTotalVolume() {
+            return totalVolume;
+        }
+    }
+}
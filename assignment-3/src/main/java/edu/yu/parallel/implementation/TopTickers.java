@@ -0,0 +1,180 @@
+package edu.yu.parallel.implementation;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Bounded top-K of distinct tickers, ranked by the best value each ticker has
+ * reached. Entries live in primitive arrays arranged as a min-heap, so the
+ * worst of the K is at the root and a value that can't make the cut is
+ * rejected with a single comparison by {@link #accepts}. A ticker that is
+ * already in the heap moves down it in place when it improves, through an
+ * id-to-position index.
+ * <p>
+ * Values are longs; doubles are stored with {@link #sortable(double)} so they
+ * compare the same way. Equal values are ranked by sequence number, the
+ * position of the quote that reached the value, so the quote seen first wins
+ * as in TickerStatsAccumulator. Top-Ks of consecutive parts of a file merge
+ * exactly: a ticker in the overall top K is in the top K of the part where it
+ * reached its best value.
+ */
+public final class TopTickers {
+    private final int k;
+    private int size;
+    private final int[] ids;
+    private final long[] values;
+    private final long[] sequences;
+    // Heap position + 1 of each ticker id, 0 if it is not in the heap
+    private int[] positions = new int[0];
+
+    public TopTickers(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.k = k;
+        this.ids = new int[k];
+        this.values = new long[k];
+        this.sequences = new long[k];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Maps a double to a long that orders the same way, NaN aside.
+     */
+    public static long sortable(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    public static double unsortable(long value) {
+        return Double.longBitsToDouble(value ^ ((value >> 63) & Long.MAX_VALUE));
+    }
+
+    /**
+     * @return False if a later quote with this value can't change the top K.
+     */
+    public boolean accepts(long value) {
+        return size < k || value > values[0];
+    }
+
+    /**
+     * Records that the ticker reached the value. The sequence number must be
+     * higher than that of any value offered before.
+     */
+    public void offer(int id, long value, long sequence) {
+        int position = id < positions.length ? positions[id] - 1 : -1;
+        if (position >= 0) {
+            if (value > values[position]) {
+                values[position] = value;
+                sequences[position] = sequence;
+                siftDown(position);
+            }
+        } else if (size < k) {
+            set(size++, id, value, sequence);
+            siftUp(size - 1);
+        } else if (value > values[0]) {
+            positions[ids[0]] = 0;
+            set(0, id, value, sequence);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Folds the top K of the part of the file that follows this one.
+     *
+     * @param sequenceOffset Added to the other's sequence numbers to keep them
+     *                       after this one's, e.g. the number of quotes seen by this one.
+     * @param translation    Maps the other's ticker ids to this one's, or null if they are the same.
+     * @return this
+     */
+    public TopTickers merge(TopTickers other, long sequenceOffset, IntUnaryOperator translation) {
+        // Best first, so that entries with equal values arrive in sequence order like quotes do
+        for (int i : other.ranking()) {
+            if (accepts(other.values[i])) {
+                int id = translation == null ? other.ids[i] : translation.applyAsInt(other.ids[i]);
+                offer(id, other.values[i], other.sequences[i] + sequenceOffset);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return Heap positions ordered from the best entry to the worst.
+     */
+    public int[] ranking() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> isWorse(a, b) ? 1 : isWorse(b, a) ? -1 : 0);
+        int[] ranking = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranking[i] = order[i];
+        }
+        return ranking;
+    }
+
+    public int getId(int position) {
+        return ids[position];
+    }
+
+    public long getValue(int position) {
+        return values[position];
+    }
+
+    private boolean isWorse(int a, int b) {
+        return values[a] < values[b] || (values[a] == values[b] && sequences[a] > sequences[b]);
+    }
+
+    private void set(int position, int id, long value, long sequence) {
+        ids[position] = id;
+        values[position] = value;
+        sequences[position] = sequence;
+        if (id >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(id + 1, 2 * positions.length));
+        }
+        positions[id] = position + 1;
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        long value = values[a];
+        long sequence = sequences[a];
+        set(a, ids[b], values[b], sequences[b]);
+        set(b, id, value, sequence);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!isWorse(position, parent)) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int worst = position;
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                if (isWorse(child, worst)) {
+                    worst = child;
+                }
+            }
+            if (worst == position) {
+                return;
+            }
+            swap(position, worst);
+            position = worst;
+        }
+    }
+}
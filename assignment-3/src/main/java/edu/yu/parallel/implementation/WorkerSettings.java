@@ -0,0 +1,157 @@
+package edu.yu.parallel.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * How the chunked parallel engine is set up on this machine: the number of
+ * workers, the chunk size, and whether the workers pad their accumulators.
+ * {@link WorkerTuner} finds the best settings for a machine and saves them as
+ * a properties file, by default ~/.snpdata/tuning.properties or the file
+ * named by the snp.tuning.file system property. Settings saved on a machine
+ * with a different number of cores or architecture are ignored.
+ */
+public final class WorkerSettings {
+    private final static Logger logger = LogManager.getLogger(WorkerSettings.class);
+    public static final String FILE_PROPERTY = "snp.tuning.file";
+
+    private final int workers;
+    private final long chunkSize;
+    private final boolean padded;
+    private final double bytesPerSecond;
+
+    /**
+     * @param bytesPerSecond The throughput measured with these settings, or 0 if not measured.
+     */
+    public WorkerSettings(int workers, long chunkSize, boolean padded, double bytesPerSecond) {
+        if (workers < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("workers and chunkSize must be positive");
+        }
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+        this.padded = padded;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @return One worker per core, with the default chunk size.
+     */
+    public static WorkerSettings defaults() {
+        return new WorkerSettings(Runtime.getRuntime().availableProcessors(),
+                MemoryMappedDataProcessor.DEFAULT_CHUNK_SIZE, false, 0);
+    }
+
+    public static Path defaultFile() {
+        String file = System.getProperty(FILE_PROPERTY);
+        return file != null ? Path.of(file) : Path.of(System.getProperty("user.home"), ".snpdata", "tuning.properties");
+    }
+
+    /**
+     * @return The settings saved for this machine in the default file, or the defaults.
+     */
+    public static WorkerSettings forMachine() {
+        return forMachine(defaultFile());
+    }
+
+    /**
+     * @return The settings saved for this machine in the file, or the defaults.
+     */
+    public static WorkerSettings forMachine(Path file) {
+        WorkerSettings saved = load(file);
+        return saved != null ? saved : defaults();
+    }
+
+    /**
+     * @return The settings saved in the file, or null if there are none for
+     *         this machine.
+     */
+    public static WorkerSettings load(Path file) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable tuning file {}: {}", file, e.getMessage());
+            return null;
+        }
+        if (!String.valueOf(Runtime.getRuntime().availableProcessors()).equals(properties.getProperty("cores"))
+                || !System.getProperty("os.arch").equals(properties.getProperty("arch"))) {
+            logger.debug("Ignoring tuning file {} from another machine", file);
+            return null;
+        }
+        try {
+            return new WorkerSettings(Integer.parseInt(properties.getProperty("workers")),
+                    Long.parseLong(properties.getProperty("chunkSize")),
+                    Boolean.parseBoolean(properties.getProperty("padded")),
+                    Double.parseDouble(properties.getProperty("bytesPerSecond", "0")));
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring unreadable tuning file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the settings to the file, marked as being for this machine.
+     */
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("cores", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        properties.setProperty("arch", System.getProperty("os.arch"));
+        properties.setProperty("workers", String.valueOf(workers));
+        properties.setProperty("chunkSize", String.valueOf(chunkSize));
+        properties.setProperty("padded", String.valueOf(padded));
+        properties.setProperty("bytesPerSecond", String.valueOf(bytesPerSecond));
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "Parallel processor settings found by WorkerTuner");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return A memory-mapped processor set up with these settings.
+     */
+    public MemoryMappedDataProcessor processor() {
+        MemoryMappedDataProcessor processor = new MemoryMappedDataProcessor(workers, chunkSize);
+        return padded ? processor.withPaddedAccumulators() : processor;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isPadded() {
+        return padded;
+    }
+
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d workers, %d KB chunks%s, %.0f MB/s", workers, chunkSize >> 10,
+                padded ? ", padded accumulators" : "", bytesPerSecond / 1e6);
+    }
+}
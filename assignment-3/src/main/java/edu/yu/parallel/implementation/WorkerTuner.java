@@ -0,0 +1,125 @@
+package edu.yu.parallel.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.DataProcessor;
+import edu.yu.parallel.ProcessingException;
+
+/**
+ * Finds the {@link WorkerSettings} that parse a sample file fastest on this
+ * machine. Past some number of threads a parse is limited by memory bandwidth
+ * rather than cores, and the chunk size trades load balance against per-chunk
+ * overhead, so neither one core per worker nor a fixed chunk size is best
+ * everywhere.
+ * <p>
+ * Trying every combination would take too long on a machine with many cores,
+ * so the sweep goes one setting at a time: the chunk size with one worker per
+ * core, then the number of workers with the best chunk size, then padded
+ * accumulators or not. Each setting is timed as the best of a few runs, after
+ * one run to warm up.
+ */
+public class WorkerTuner {
+    private final static Logger logger = LogManager.getLogger(WorkerTuner.class);
+    static final long[] CHUNK_SIZES = { 1L << 20, 4L << 20, 16L << 20, 32L << 20, 64L << 20 };
+    public static final int DEFAULT_RUNS = 3;
+
+    private final String sampleFile;
+    private final int cores;
+    private final int runs;
+
+    public WorkerTuner(String sampleFile) {
+        this(sampleFile, Runtime.getRuntime().availableProcessors(), DEFAULT_RUNS);
+    }
+
+    /**
+     * @param sampleFile A file like the ones the settings are for, large
+     *                   enough to keep all the workers busy.
+     * @param cores      The most workers to try.
+     * @param runs       The number of times each setting is timed.
+     */
+    public WorkerTuner(String sampleFile, int cores, int runs) {
+        if (cores < 1 || runs < 1) {
+            throw new IllegalArgumentException("cores and runs must be positive");
+        }
+        this.sampleFile = sampleFile;
+        this.cores = cores;
+        this.runs = runs;
+    }
+
+    /**
+     * Sweeps the settings and saves the best ones to the file.
+     */
+    public static WorkerSettings tune(String sampleFile, Path settingsFile) throws IOException, ProcessingException {
+        WorkerSettings best = new WorkerTuner(sampleFile).sweep();
+        best.save(settingsFile);
+        logger.info("Saved {} to {}", best, settingsFile);
+        return best;
+    }
+
+    public WorkerSettings sweep() throws IOException, ProcessingException {
+        long size = new File(sampleFile).length();
+        time(new MemoryMappedDataProcessor(cores, CHUNK_SIZES[0]));
+
+        WorkerSettings best = null;
+        for (long chunkSize : CHUNK_SIZES) {
+            // Larger chunks than a worker's share of the file all split it the same way
+            if (best != null && chunkSize > (size + cores - 1) / cores) {
+                break;
+            }
+            best = faster(best, new WorkerSettings(cores, chunkSize, false, 0), size);
+        }
+        for (int workers : workerCounts()) {
+            if (workers != best.getWorkers()) {
+                best = faster(best, new WorkerSettings(workers, best.getChunkSize(), false, 0), size);
+            }
+        }
+        return faster(best, new WorkerSettings(best.getWorkers(), best.getChunkSize(), true, 0), size);
+    }
+
+    /**
+     * @return 1, 2, 4 and so on up to the number of cores, and the number of cores.
+     */
+    private List<Integer> workerCounts() {
+        List<Integer> counts = new ArrayList<>();
+        for (int workers = 1; workers < cores; workers *= 2) {
+            counts.add(workers);
+        }
+        counts.add(cores);
+        return counts;
+    }
+
+    /**
+     * @return The best so far, or the candidate with its measured throughput if it is faster.
+     */
+    private WorkerSettings faster(WorkerSettings best, WorkerSettings candidate, long size)
+            throws IOException, ProcessingException {
+        double bytesPerSecond = size * 1e9 / Math.max(1, time(candidate.processor()));
+        logger.debug("{} workers, {} KB chunks{}: {} MB/s", candidate.getWorkers(), candidate.getChunkSize() >> 10,
+                candidate.isPadded() ? ", padded" : "", (long) (bytesPerSecond / 1e6));
+        if (best != null && best.getBytesPerSecond() >= bytesPerSecond) {
+            return best;
+        }
+        return new WorkerSettings(candidate.getWorkers(), candidate.getChunkSize(), candidate.isPadded(),
+                bytesPerSecond);
+    }
+
+    /**
+     * @return The shortest time the processor took to process the sample.
+     */
+    private long time(DataProcessor processor) throws IOException, ProcessingException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long startTime = System.nanoTime();
+            processor.processFile(sampleFile);
+            best = Math.min(best, System.nanoTime() - startTime);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,215 @@
+package edu.yu.parallel.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.ProcessingException;
+
+/**
+ * Sparse index from years to the parts of a quote CSV that contain them. The
+ * file is cut into newline-aligned blocks of about {@link #BLOCK_SIZE} bytes
+ * and the index records the lowest and highest year in each block, so a year
+ * range query only has to read the blocks that overlap it.
+ * <p>
+ * The index is built with one sequential pass and stored next to the CSV with
+ * the {@link #SUFFIX} suffix, together with the size and modification time of
+ * the CSV so that a stale index is rebuilt.
+ */
+public class YearIndex {
+    private final static Logger logger = LogManager.getLogger(YearIndex.class);
+    public static final String SUFFIX = ".yidx";
+    static final int BLOCK_SIZE = 1 << 20;
+    private static final int MAGIC = 0x534e5049; // "SNPI"
+
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] minYears;
+    private final int[] maxYears;
+
+    private YearIndex(long sourceSize, long sourceModified, long[] starts, long[] ends, int[] minYears, int[] maxYears) {
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.starts = starts;
+        this.ends = ends;
+        this.minYears = minYears;
+        this.maxYears = maxYears;
+    }
+
+    /**
+     * @return The index stored next to the CSV, building it first if it is
+     *         missing or out of date.
+     */
+    public static YearIndex forFile(Path csv) throws IOException, ProcessingException {
+        Path indexFile = csv.resolveSibling(csv.getFileName() + SUFFIX);
+        YearIndex index = read(indexFile);
+        if (index != null && index.isCurrent(csv)) {
+            return index;
+        }
+        logger.info("Building year index {}", indexFile);
+        index = build(csv);
+        index.write(indexFile);
+        return index;
+    }
+
+    private boolean isCurrent(Path csv) throws IOException {
+        return Files.size(csv) == sourceSize && Files.getLastModifiedTime(csv).toMillis() == sourceModified;
+    }
+
+    /**
+     * @return The number of blocks in the index.
+     */
+    public int getBlockCount() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the byte ranges that may hold quotes from fromYear to toYear.
+     * Adjacent matching blocks are joined as long as the joined range stays
+     * within maxRangeSize bytes. Every range starts at the beginning of a line.
+     *
+     * @return Pairs of start (inclusive) and end (exclusive) offsets, in file order.
+     */
+    public List<long[]> ranges(int fromYear, int toYear, long maxRangeSize) {
+        List<long[]> ranges = new ArrayList<>();
+        long[] current = null;
+        for (int i = 0; i < starts.length; i++) {
+            if (maxYears[i] < fromYear || minYears[i] > toYear) {
+                continue;
+            }
+            if (current != null && current[1] == starts[i] && ends[i] - current[0] <= maxRangeSize) {
+                current[1] = ends[i];
+            } else {
+                current = new long[] { starts[i], ends[i] };
+                ranges.add(current);
+            }
+        }
+        return ranges;
+    }
+
+    static YearIndex build(Path csv) throws IOException, ProcessingException {
+        long sourceSize = Files.size(csv);
+        long sourceModified = Files.getLastModifiedTime(csv).toMillis();
+        List<long[]> offsets = new ArrayList<>();
+        List<int[]> years = new ArrayList<>();
+        int[] range = new int[2];
+        QuoteParser.QuoteSink sink = (year, close, volume, line, tickerStart, tickerLength) -> {
+            range[0] = Math.min(range[0], year);
+            range[1] = Math.max(range[1], year);
+        };
+
+        QuoteParser parser = new QuoteParser();
+        byte[] block = new byte[BLOCK_SIZE];
+        long offset = 0;
+        int filled = 0;
+        try (InputStream in = new FileInputStream(csv.toFile())) {
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                int read = in.read(block, filled, block.length - filled);
+                endOfInput = read < 0;
+                filled += Math.max(read, 0);
+                if (!endOfInput && filled < block.length) {
+                    continue;
+                }
+
+                int from = 0;
+                if (offset == 0) {
+                    from = QuoteParser.skipHeader(block, 0, filled);
+                    from = from < 0 ? filled : from;
+                }
+                range[0] = Integer.MAX_VALUE;
+                range[1] = Integer.MIN_VALUE;
+                int consumed = parser.parseLines(block, from, filled, endOfInput, sink);
+                if (consumed == 0 && filled == block.length) {
+                    // A single line longer than the block
+                    block = Arrays.copyOf(block, block.length * 2);
+                    continue;
+                }
+                if (range[0] <= range[1]) {
+                    offsets.add(new long[] { offset, offset + consumed });
+                    years.add(new int[] { range[0], range[1] });
+                }
+                offset += consumed;
+                filled -= consumed;
+                System.arraycopy(block, consumed, block, 0, filled);
+            }
+        }
+
+        int blocks = offsets.size();
+        long[] starts = new long[blocks];
+        long[] ends = new long[blocks];
+        int[] minYears = new int[blocks];
+        int[] maxYears = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            starts[i] = offsets.get(i)[0];
+            ends[i] = offsets.get(i)[1];
+            minYears[i] = years.get(i)[0];
+            maxYears[i] = years.get(i)[1];
+        }
+        return new YearIndex(sourceSize, sourceModified, starts, ends, minYears, maxYears);
+    }
+
+    private static YearIndex read(Path indexFile) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            long sourceSize = in.readLong();
+            long sourceModified = in.readLong();
+            int blocks = in.readInt();
+            long[] starts = new long[blocks];
+            long[] ends = new long[blocks];
+            int[] minYears = new int[blocks];
+            int[] maxYears = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                starts[i] = in.readLong();
+                ends[i] = in.readLong();
+                minYears[i] = in.readInt();
+                maxYears[i] = in.readInt();
+            }
+            return new YearIndex(sourceSize, sourceModified, starts, ends, minYears, maxYears);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable year index {}: {}", indexFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path indexFile) throws IOException {
+        Path temp = Files.createTempFile(indexFile.toAbsolutePath().getParent(), "yidx", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(sourceSize);
+                out.writeLong(sourceModified);
+                out.writeInt(starts.length);
+                for (int i = 0; i < starts.length; i++) {
+                    out.writeLong(starts[i]);
+                    out.writeLong(ends[i]);
+                    out.writeInt(minYears[i]);
+                    out.writeInt(maxYears[i]);
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
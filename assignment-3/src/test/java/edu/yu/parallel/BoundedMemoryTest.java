@@ -0,0 +1,58 @@
+package edu.yu.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.implementation.ParallelDataProcessor;
+import edu.yu.parallel.implementation.PipelineMetrics;
+import edu.yu.parallel.implementation.PipelineResult;
+import edu.yu.parallel.implementation.SequentialDataProcessor;
+
+/**
+ * Runs in its own surefire execution with a small heap (see pom.xml), so that
+ * the generated file is larger than the heap.
+ */
+public class BoundedMemoryTest {
+    private static final long MAX_IN_FLIGHT_BYTES = 4 << 20;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void processesFileLargerThanHeap() throws Exception {
+        long heap = Runtime.getRuntime().maxMemory();
+        // About 50 bytes a row
+        long rows = heap / 25;
+        Path csv = tempDir.resolve("large.csv");
+        new SnpDataGenerator().rows(rows).tickers(500).years(2000, 2019).seed(17).write(csv.toString());
+        assertTrue(Files.size(csv) > heap, "the file must not fit in the heap");
+
+        ParallelDataProcessor processor = ParallelDataProcessor.bounded(2, MAX_IN_FLIGHT_BYTES);
+        PipelineResult result = processor.processFileWithMetrics(csv.toString());
+        Map<Integer, TickerStats> stats = result.getStats();
+        assertEquals(rows, stats.values().stream().mapToLong(TickerStats::getQuoteCount).sum());
+        DataProcessorTest.assertSameStats(new SequentialDataProcessor().processFile(csv.toString()), stats);
+
+        PipelineMetrics metrics = result.getPipelineMetrics();
+        assertEquals(Files.size(csv), metrics.getBytesRead());
+        assertTrue(metrics.getBufferBytes() <= MAX_IN_FLIGHT_BYTES, metrics.toString());
+    }
+
+    @Test
+    public void rejectsLinesLongerThanItsBuffers() throws Exception {
+        Path csv = tempDir.resolve("long-line.csv");
+        Files.writeString(csv, "2013-02-08,15.07,15.12,14.63,14.75,8407500," + "A".repeat(64 << 10) + "\n");
+        ParallelDataProcessor processor = ParallelDataProcessor.bounded(1, 64 << 10);
+        assertTrue(processor.isBounded());
+        assertThrows(ProcessingException.class, () -> processor.processFile(csv.toString()));
+        assertThrows(IllegalArgumentException.class, () -> ParallelDataProcessor.bounded(4, 4096));
+    }
+}
@@ -0,0 +1,742 @@
+package edu.yu.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.implementation.AdaptiveDataProcessor;
+import edu.yu.parallel.implementation.CachingDataProcessor;
+import edu.yu.parallel.implementation.ColumnReductions;
+import edu.yu.parallel.implementation.ColumnarDataProcessor;
+import edu.yu.parallel.implementation.ColumnarSnapshot;
+import edu.yu.parallel.implementation.MemoryMappedDataProcessor;
+import edu.yu.parallel.implementation.MultiFileDataProcessor;
+import edu.yu.parallel.implementation.ParallelDataProcessor;
+import edu.yu.parallel.implementation.ParallelStreamsDataProcessor;
+import edu.yu.parallel.implementation.PipelineMetrics;
+import edu.yu.parallel.implementation.PipelineResult;
+import edu.yu.parallel.implementation.RollupDataProcessor;
+import edu.yu.parallel.implementation.SequentialDataProcessor;
+import edu.yu.parallel.implementation.SketchDataProcessor;
+import edu.yu.parallel.implementation.TailingDataProcessor;
+import edu.yu.parallel.implementation.TickerCubeDataProcessor;
+import edu.yu.parallel.implementation.TickerDictionary;
+import edu.yu.parallel.implementation.TickerStatsAccumulator;
+import edu.yu.parallel.implementation.WorkerSettings;
+import edu.yu.parallel.implementation.YearIndex;
+
+public class DataProcessorTest {
+    private static final String HEADER = "date,open,high,low,close,volume,Name\n";
+
+    @TempDir
+    Path tempDir;
+
+    private Path csv;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        csv = tempDir.resolve("quotes.csv");
+        Files.writeString(csv, randomQuotes(20_000, 42L));
+    }
+
+    static String randomQuotes(int rows, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (int i = 0; i < rows; i++) {
+            int year = 2010 + random.nextInt(8);
+            // Few distinct values so that ties between tickers are common
+            double close = random.nextInt(500) / 4.0;
+            long volume = random.nextInt(1000) * 100L;
+            sb.append(String.format(Locale.ROOT, "%d-%02d-%02d,1.0,2.0,0.5,%.2f,%d,T%d%n",
+                    year, 1 + random.nextInt(12), 1 + random.nextInt(28), close, volume, random.nextInt(50)));
+        }
+        return sb.toString();
+    }
+
+    static void assertSameStats(Map<Integer, TickerStats> expected, Map<Integer, TickerStats> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Integer year : expected.keySet()) {
+            assertEquals(expected.get(year).Summary(), actual.get(year).Summary(), "year " + year);
+        }
+    }
+
+    @Test
+    public void sequentialSkipsHeaderAndCountsQuotes() throws Exception {
+        Files.writeString(csv, HEADER
+                + "2013-02-08,15.07,15.12,14.63,14.75,8407500,AAL\n"
+                + "2013-02-11,14.89,15.01,14.26,14.46,8882000,AAL\n"
+                + "2014-02-08,1.0,1.0,1.0,99.5,10,ZTS\n");
+        Map<Integer, TickerStats> stats = new SequentialDataProcessor().processFile(csv.toString());
+        assertEquals(2, stats.get(2013).getQuoteCount());
+        assertEquals(14.75, stats.get(2013).getHighestClose());
+        assertEquals("AAL", stats.get(2013).getHighestVolumeTicker());
+        assertEquals(8882000L, stats.get(2013).getHighestVolume());
+        assertEquals("ZTS", stats.get(2014).getHighestCloseTicker());
+    }
+
+    @Test
+    public void malformedLineIsReported() throws Exception {
+        Files.writeString(csv, HEADER + "2013-02-08,15.07,15.12,14.63,oops,8407500,AAL\n");
+        assertThrows(ProcessingException.class, () -> new SequentialDataProcessor().processFile(csv.toString()));
+        assertThrows(ProcessingException.class, () -> new MemoryMappedDataProcessor().processFile(csv.toString()));
+        assertThrows(ProcessingException.class, () -> new ParallelDataProcessor(2, 16).processFile(csv.toString()));
+        assertThrows(ProcessingException.class, () -> new ParallelStreamsDataProcessor(16).processFile(csv.toString()));
+    }
+
+    @Test
+    public void quarantineSkipsMalformedLinesAndEnforcesBudget() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        List<String> lines = Files.readAllLines(csv);
+        StringBuilder dirty = new StringBuilder();
+        List<Long> badOffsets = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0 && i % 1000 == 0) {
+                String bad = "2013-02-08,15.07,15.12,14.63,oops" + i + ",8407500,AAL\n";
+                badOffsets.add(offset);
+                dirty.append(bad);
+                offset += bad.length();
+            }
+            dirty.append(lines.get(i)).append('\n');
+            offset += lines.get(i).length() + 1;
+        }
+        Files.writeString(csv, dirty);
+
+        Path rejectFile = tempDir.resolve("rejects.txt");
+        ParallelDataProcessor processor = new ParallelDataProcessor(3, 4096).withQuarantine(rejectFile.toString(), 100);
+        PipelineResult result = processor.processFileWithMetrics(csv.toString());
+        assertSameStats(expected, result.getStats());
+        PipelineMetrics metrics = result.getPipelineMetrics();
+        assertEquals(badOffsets.size(), metrics.getRejectedLines());
+        assertEquals(metrics.getBlocks(), metrics.getRejectsByBlock().length);
+        assertEquals(badOffsets.size(), Arrays.stream(metrics.getRejectsByBlock()).sum());
+        List<String> rejects = Files.readAllLines(rejectFile);
+        assertEquals(badOffsets.size(), rejects.size());
+        for (int i = 0; i < rejects.size(); i++) {
+            assertTrue(rejects.get(i).startsWith(badOffsets.get(i) + "\t2013-02-08,15.07,15.12,14.63,oops"),
+                    rejects.get(i));
+        }
+
+        assertThrows(ProcessingException.class, () -> new ParallelDataProcessor(3, 4096)
+                .withQuarantine(null, badOffsets.size() - 1).processFile(csv.toString()));
+        assertThrows(ProcessingException.class, () -> new ParallelDataProcessor(3, 4096).processFile(csv.toString()));
+    }
+
+    @Test
+    public void runMetricsCountRowsBytesAndWorkers() throws Exception {
+        long size = Files.size(csv);
+        DataProcessor[] processors = { new SequentialDataProcessor(), new ParallelDataProcessor(3, 4096),
+                new ParallelStreamsDataProcessor(4096), new MemoryMappedDataProcessor(4, 997) };
+        RunMetrics[] results = new RunMetrics[processors.length];
+        for (int i = 0; i < processors.length; i++) {
+            DataProcessor processor = processors[i];
+            RunMetrics metrics = processor.processFileWithMetrics(csv.toString()).getMetrics();
+            results[i] = metrics;
+            String name = processor.getClass().getSimpleName();
+            assertEquals(name, metrics.getProcessor());
+            assertEquals(20_000, metrics.getRowsParsed(), name);
+            // Some processors skip the header without counting it
+            assertTrue(metrics.getBytesRead() >= size - HEADER.length() && metrics.getBytesRead() <= size, name);
+            assertEquals(20_000, metrics.getRowsByWorker().values().stream().mapToLong(Long::longValue).sum(), name);
+            assertTrue(metrics.getWorkerSkew() >= 1 && metrics.getWorkerSkew() <= metrics.getRowsByWorker().size());
+            assertTrue(metrics.getParseNanos() > 0 && metrics.getElapsedNanos() > 0, name);
+        }
+        assertTrue(results[1].getReadNanos() > 0);
+
+        // The other processors report their own runs too
+        Map<DataProcessor, String> others = new LinkedHashMap<>();
+        others.put(new ColumnarDataProcessor(2), csv.toString());
+        others.put(new MultiFileDataProcessor(2), tempDir.resolve("quotes.c?v").toString());
+        others.put(new TailingDataProcessor(128), csv.toString());
+        others.put(new AdaptiveDataProcessor(2, 0), csv.toString());
+        for (Map.Entry<DataProcessor, String> other : others.entrySet()) {
+            RunResult result = other.getKey().processFileWithMetrics(other.getValue());
+            String name = other.getKey().getClass().getSimpleName();
+            assertEquals(20_000, result.getMetrics().getRowsParsed(), name);
+            assertTrue(result.getMetrics().getBytesRead() > 0 && result.getMetrics().getElapsedNanos() > 0, name);
+        }
+        CachingDataProcessor caching = new CachingDataProcessor(new SequentialDataProcessor(),
+                tempDir.resolve("metrics-cache").toString());
+        assertEquals(20_000, caching.processFileWithMetrics(csv.toString()).getMetrics().getRowsParsed());
+        RunMetrics hit = caching.processFileWithMetrics(csv.toString()).getMetrics();
+        assertEquals("CachingDataProcessor", hit.getProcessor());
+        assertEquals(0, hit.getRowsParsed());
+        assertTrue(hit.getBytesRead() > 0);
+
+        ObjectName name = new ObjectName("edu.yu.parallel:type=DataProcessor,name=SequentialDataProcessor");
+        assertEquals(20_000L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "RowsParsed"));
+        assertEquals(false, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Running"));
+
+        Path recordingFile = tempDir.resolve("run.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("edu.yu.parallel.ProcessFile");
+            recording.enable("edu.yu.parallel.ParseChunk");
+            recording.start();
+            new ParallelDataProcessor(2, 4096).processFile(csv.toString());
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        long runs = 0;
+        long chunkRows = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            if (event.getEventType().getName().equals("edu.yu.parallel.ProcessFile")) {
+                runs++;
+                assertEquals(20_000, event.getLong("rowsParsed"));
+            } else {
+                chunkRows += event.getLong("rows");
+            }
+        }
+        assertEquals(1, runs);
+        assertEquals(20_000, chunkRows);
+    }
+
+    @Test
+    public void gzipInputMatchesPlainText() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        byte[] text = Files.readAllBytes(csv);
+        Path dir = Files.createDirectory(tempDir.resolve("gz"));
+        Path gz = dir.resolve("quotes.csv.gz");
+        // One member per 64 KB of text, as bgzip writes
+        try (var out = Files.newOutputStream(gz)) {
+            for (int from = 0; from < text.length; from += 1 << 16) {
+                try (var member = new GZIPOutputStream(new FilterOutputStream(out) {
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                })) {
+                    member.write(text, from, Math.min(text.length - from, 1 << 16));
+                }
+            }
+        }
+        DataProcessor[] processors = { new SequentialDataProcessor(), new ParallelDataProcessor(3, 4096),
+                new ParallelStreamsDataProcessor(), new MemoryMappedDataProcessor(), new MultiFileDataProcessor() };
+        for (DataProcessor processor : processors) {
+            String path = processor instanceof MultiFileDataProcessor ? dir.toString() : gz.toString();
+            assertSameStats(expected, processor.processFile(path));
+        }
+        assertSameStats(expected, new MemoryMappedDataProcessor(2, 1 << 20, 5).processFile(gz.toString()));
+    }
+
+    @Test
+    public void memoryMappedMatchesSequential() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        assertSameStats(expected, new MemoryMappedDataProcessor().processFile(csv.toString()));
+        // Tiny chunks force many newline realignments and merges
+        assertSameStats(expected, new MemoryMappedDataProcessor(4, 997).processFile(csv.toString()));
+        assertSameStats(expected, new MemoryMappedDataProcessor(3, 1).processFile(csv.toString()));
+    }
+
+    @Test
+    public void concurrentRunsKeepTheirOwnMetrics() throws Exception {
+        Path small = tempDir.resolve("small.csv");
+        Files.write(small, Files.readAllLines(csv).subList(0, 5_001));
+        DataProcessor processor = new ParallelDataProcessor(2, 4096);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 5; round++) {
+                Future<RunResult> large = executor.submit(() -> processor.processFileWithMetrics(csv.toString()));
+                Future<RunResult> little = executor.submit(() -> processor.processFileWithMetrics(small.toString()));
+                assertEquals(20_000, large.get().getMetrics().getRowsParsed());
+                assertEquals(csv.toString(), large.get().getMetrics().getFile());
+                assertEquals(5_000, little.get().getMetrics().getRowsParsed());
+                assertEquals(small.toString(), little.get().getMetrics().getFile());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        ObjectName name = new ObjectName("edu.yu.parallel:type=DataProcessor,name=ParallelDataProcessor");
+        assertEquals(0, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "RunningRuns"));
+    }
+
+    @Test
+    public void parallelPipelineMatchesSequential() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        assertSameStats(expected, new ParallelDataProcessor().processFile(csv.toString()));
+        // Blocks shorter than a line have to grow; one buffer serializes the stages
+        assertSameStats(expected, new ParallelDataProcessor(3, 16).processFile(csv.toString()));
+        ParallelDataProcessor processor = new ParallelDataProcessor(4, 4096, 1);
+        PipelineResult result = processor.processFileWithMetrics(csv.toString());
+        assertSameStats(expected, result.getStats());
+
+        PipelineMetrics metrics = result.getPipelineMetrics();
+        assertEquals(Files.size(csv), metrics.getBytesRead());
+        assertTrue(metrics.getBlocks() > 1);
+        assertTrue(metrics.getMaxQueueDepth() <= 1);
+    }
+
+    @Test
+    public void parallelStreamsMatchesSequential() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        assertSameStats(expected, new ParallelStreamsDataProcessor().processFile(csv.toString()));
+        assertSameStats(expected, new ParallelStreamsDataProcessor(100).processFile(csv.toString()));
+        assertSameStats(expected, new ParallelStreamsDataProcessor(1).processFile(csv.toString()));
+    }
+
+    @Test
+    public void paddedAndSizedWorkersMatchSequential() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        assertSameStats(expected, new MemoryMappedDataProcessor(3, 997).withPaddedAccumulators()
+                .processFile(csv.toString()));
+        assertSameStats(expected, new ParallelDataProcessor(3, 16).withPaddedAccumulators()
+                .processFile(csv.toString()));
+
+        ParallelStreamsDataProcessor ownPool = new ParallelStreamsDataProcessor(100, 3);
+        RunResult result = ownPool.processFileWithMetrics(csv.toString());
+        assertSameStats(expected, result.getStats());
+        for (String worker : result.getMetrics().getRowsByWorker().keySet()) {
+            assertTrue(!worker.contains("commonPool"), worker);
+        }
+        assertSameStats(expected, ownPool.withPaddedAccumulators().processFile(csv.toString()));
+        Path bad = tempDir.resolve("bad.csv");
+        Files.writeString(bad, HEADER + "2013-02-08,15.07,15.12,14.63,oops,8407500,AAL\n");
+        assertThrows(ProcessingException.class, () -> new ParallelStreamsDataProcessor(100, 2)
+                .processFile(bad.toString()));
+    }
+
+    @Test
+    public void adaptivePicksProcessorBySizeAndRecordsWhy() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        long size = Files.size(csv);
+
+        AdaptiveDataProcessor small = new AdaptiveDataProcessor(4, size + 1);
+        RunResult result = small.processFileWithMetrics(csv.toString());
+        assertSameStats(expected, result.getStats());
+        RunMetrics metrics = result.getMetrics();
+        assertEquals("sequential", metrics.getSelection());
+        assertTrue(metrics.getSelectionReason().contains("below"), metrics.getSelectionReason());
+        assertEquals(20_000, metrics.getRowsParsed());
+
+        AdaptiveDataProcessor large = new AdaptiveDataProcessor(4, size);
+        result = large.processFileWithMetrics(csv.toString());
+        assertSameStats(expected, result.getStats());
+        assertEquals("memory-mapped", result.getMetrics().getSelection());
+        assertEquals(2, large.processFile(csv.toString(), 2011, 2012).size());
+
+        AdaptiveDataProcessor oneCore = new AdaptiveDataProcessor(1, 0);
+        result = oneCore.processFileWithMetrics(csv.toString());
+        assertSameStats(expected, result.getStats());
+        assertEquals("sequential", result.getMetrics().getSelection());
+
+        result = large.processFileWithMetrics(tempDir.toString());
+        assertSameStats(expected, result.getStats());
+        assertEquals("multi-file", result.getMetrics().getSelection());
+
+        // A compressed file is measured by the text it inflates to, not by its own size
+        Path gz = tempDir.resolve("quotes.csv.gz");
+        try (var out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            Files.copy(csv, out);
+        }
+        assertTrue(Files.size(gz) < size / 2);
+        result = new AdaptiveDataProcessor(4, size / 2).processFileWithMetrics(gz.toString());
+        assertSameStats(expected, result.getStats());
+        assertEquals("parallel", result.getMetrics().getSelection());
+        assertTrue(result.getMetrics().getSelectionReason().contains("inflated"),
+                result.getMetrics().getSelectionReason());
+
+        // Settings saved by the tuner are read from the file the processor is given
+        Path tuning = tempDir.resolve("tuning.properties");
+        new WorkerSettings(1, MemoryMappedDataProcessor.DEFAULT_CHUNK_SIZE, false, 0).save(tuning);
+        result = new AdaptiveDataProcessor(tuning).processFileWithMetrics(csv.toString());
+        assertEquals("sequential", result.getMetrics().getSelection());
+        assertTrue(result.getMetrics().getSelectionReason().contains("one worker"));
+
+        // The calibrated threshold never splits a file this small
+        AdaptiveDataProcessor calibrated = new AdaptiveDataProcessor(4, -1);
+        result = calibrated.processFileWithMetrics(csv.toString());
+        assertSameStats(expected, result.getStats());
+        assertEquals("sequential", result.getMetrics().getSelection());
+        assertTrue(result.getMetrics().toString().contains("chose sequential"));
+    }
+
+    @Test
+    public void tailingPicksUpAppendedLines() throws Exception {
+        String all = Files.readString(csv);
+        Path growing = tempDir.resolve("growing.csv");
+        Files.writeString(growing, "");
+        TailingDataProcessor tailing = new TailingDataProcessor(128);
+
+        Map<Integer, TickerStats> live = tailing.processFile(growing.toString());
+        // Append in uneven pieces so that refreshes see partial lines and a partial header
+        int[] cuts = { 10, 500, 501, 40_000, all.length() / 2, all.length() - 3, all.length() };
+        int written = 0;
+        for (int cut : cuts) {
+            Files.writeString(growing, all.substring(written, cut), StandardOpenOption.APPEND);
+            written = cut;
+            assertSame(live, tailing.processFile(growing.toString()));
+        }
+        assertEquals(all.length(), tailing.getOffset());
+        assertSameStats(new SequentialDataProcessor().processFile(csv.toString()), live);
+
+        // A good line followed by a bad one in the same block changes nothing, however often it is retried
+        Map<Integer, Integer> counts = new HashMap<>();
+        live.forEach((year, stats) -> counts.put(year, stats.getQuoteCount()));
+        Files.writeString(growing, "2013-02-08,15.07,15.12,14.63,14.75,8407500,AAL\n"
+                + "2013-02-08,15.07,15.12,14.63,oops,8407500,AAL\n", StandardOpenOption.APPEND);
+        for (int retry = 0; retry < 2; retry++) {
+            assertThrows(ProcessingException.class, () -> tailing.processFile(growing.toString()));
+            assertEquals(all.length(), tailing.getOffset());
+            live.forEach((year, stats) -> assertEquals((int) counts.get(year), stats.getQuoteCount(),
+                    "year " + year));
+        }
+    }
+
+    @Test
+    public void cachingReturnsStoredStatsUntilFileChanges() throws Exception {
+        int[] calls = { 0 };
+        DataProcessor counting = path -> {
+            calls[0]++;
+            return new SequentialDataProcessor().processFile(path);
+        };
+        Path cacheDir = tempDir.resolve("cache");
+        CachingDataProcessor caching = new CachingDataProcessor(counting, cacheDir.toString(), 1 << 20, true);
+
+        var expected = caching.processFile(csv.toString());
+        assertSameStats(expected, caching.processFile(csv.toString()));
+        assertEquals(1, calls[0]);
+
+        Files.writeString(csv, "2013-02-08,15.07,15.12,14.63,14.75,8407500,AAL\n", StandardOpenOption.APPEND);
+        assertEquals(expected.get(2013).getQuoteCount() + 1, caching.processFile(csv.toString()).get(2013).getQuoteCount());
+        assertEquals(2, calls[0]);
+
+        // A budget of zero keeps no sidecars around
+        new CachingDataProcessor(counting, cacheDir.toString(), 0, false).processFile(csv.toString());
+        try (var sidecars = Files.list(cacheDir)) {
+            assertEquals(0, sidecars.count());
+        }
+    }
+
+    @Test
+    public void cachingKeepsMissingTickersMissing() throws Exception {
+        int[] calls = { 0 };
+        // A year whose stats have no ticker, as an empty partial does
+        DataProcessor noTickers = path -> {
+            calls[0]++;
+            return Map.of(2013, new TickerStatsAccumulator(new TickerDictionary(), null, Double.NEGATIVE_INFINITY, null, Long.MIN_VALUE, 0));
+        };
+        CachingDataProcessor caching = new CachingDataProcessor(noTickers, tempDir.resolve("cache").toString());
+        caching.processFile(csv.toString());
+
+        TickerStats cached = caching.processFile(csv.toString()).get(2013);
+        assertEquals(1, calls[0]);
+        assertNull(cached.getHighestCloseTicker());
+        assertNull(cached.getHighestVolumeTicker());
+    }
+
+    @Test
+    public void columnarMatchesSequential() throws Exception {
+        var expected = new SequentialDataProcessor().processFile(csv.toString());
+        assertSameStats(expected, new ColumnarDataProcessor(3).processFile(csv.toString()));
+        assertSameStats(expected,
+                new ColumnarDataProcessor(2, ColumnReductions.scalar()).processFile(csv.toString()));
+        if (ColumnReductions.isVectorAvailable()) {
+            assertSameStats(expected,
+                    new ColumnarDataProcessor(2, ColumnReductions.vector()).processFile(csv.toString()));
+        }
+        Path snapshot = tempDir.resolve("quotes.csv" + ColumnarSnapshot.SUFFIX);
+        assertTrue(Files.exists(snapshot));
+        // Second run reads the existing snapshot, also when it is passed directly
+        assertSameStats(expected, new ColumnarDataProcessor().processFile(csv.toString()));
+        assertSameStats(expected, new ColumnarDataProcessor().processFile(snapshot.toString()));
+
+        // Long runs of one year, across the blocks the columns are scanned in
+        Path sorted = tempDir.resolve("sorted.csv");
+        new SnpDataGenerator().rows(150_000).tickers(40).years(2001, 2004).seed(3).write(sorted.toString());
+        var expectedSorted = new SequentialDataProcessor().processFile(sorted.toString());
+        assertSameStats(expectedSorted, new ColumnarDataProcessor(2).processFile(sorted.toString()));
+        assertSameStats(expectedSorted,
+                new ColumnarDataProcessor(1, ColumnReductions.scalar()).processFile(sorted.toString()));
+    }
+
+    @Test
+    public void yearRangeUsesIndexAndMatchesFilteredScan() throws Exception {
+        Path sorted = tempDir.resolve("sorted.csv");
+        new SnpDataGenerator().rows(100_000).tickers(30).years(2000, 2009).seed(9).write(sorted.toString());
+
+        var expected = new SequentialDataProcessor().processFile(sorted.toString(), 2003, 2005);
+        assertEquals(3, expected.size());
+        var processor = new MemoryMappedDataProcessor(2, 1 << 20);
+        assertSameStats(expected, processor.processFile(sorted.toString(), 2003, 2005));
+
+        YearIndex index = YearIndex.forFile(sorted);
+        assertTrue(Files.exists(tempDir.resolve("sorted.csv" + YearIndex.SUFFIX)));
+        long indexedBytes = 0;
+        for (long[] range : index.ranges(2003, 2005, Long.MAX_VALUE)) {
+            indexedBytes += range[1] - range[0];
+        }
+        assertTrue(indexedBytes < Files.size(sorted) / 2, "index should skip most of the file");
+
+        // Unsorted input still gives the same answer, the index just skips less
+        assertSameStats(new SequentialDataProcessor().processFile(csv.toString(), 2011, 2012),
+                processor.processFile(csv.toString(), 2011, 2012));
+    }
+
+    @Test
+    public void multiFileMatchesConcatenatedFile() throws Exception {
+        Path dir = Files.createDirectory(tempDir.resolve("parts"));
+        StringBuilder concatenated = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            String part = randomQuotes(500 + i * 37, i);
+            Files.writeString(dir.resolve(String.format("part-%02d.csv", i)), part);
+            concatenated.append(part.substring(HEADER.length()));
+        }
+        Files.writeString(dir.resolve("notes.txt"), "not a quote file");
+        Path all = tempDir.resolve("all.csv");
+        Files.writeString(all, HEADER + concatenated);
+
+        var expected = new SequentialDataProcessor().processFile(all.toString());
+        assertTrue(MultiFileDataProcessor.isMultiFile(dir.toString()));
+        assertSameStats(expected, new MultiFileDataProcessor(3).processFile(dir.toString()));
+        assertSameStats(expected, new MultiFileDataProcessor(2).processFile(dir + "/part-*.csv"));
+        assertEquals(2, MultiFileDataProcessor.listFiles(dir + "/part-0[12].csv").size());
+    }
+
+    @Test
+    public void rollupsMatchNaiveGroupingByPeriod() throws Exception {
+        List<TimeBucketing> bucketings = List.of(TimeBucket.YEAR, TimeBucket.QUARTER, TimeBucket.MONTH,
+                TimeBucket.ISO_WEEK);
+        Map<TimeBucketing, Map<Integer, TickerStats>> expected = new HashMap<>();
+        TickerDictionary dictionary = new TickerDictionary();
+        for (TimeBucketing bucketing : bucketings) {
+            Map<Integer, TickerStats> buckets = new HashMap<>();
+            for (String line : Files.readAllLines(csv).subList(1, 20_001)) {
+                String[] fields = line.split(",");
+                int date = Integer.parseInt(fields[0].replace("-", ""));
+                ((TickerStatsAccumulator) buckets.computeIfAbsent(bucketing.bucket(date),
+                        bucket -> new TickerStatsAccumulator(dictionary)))
+                        .accept(fields[6], Double.parseDouble(fields[4]), Long.parseLong(fields[5]));
+            }
+            expected.put(bucketing, buckets);
+        }
+        assertSameStats(new SequentialDataProcessor().processFile(csv.toString()), expected.get(TimeBucket.YEAR));
+
+        Path gz = tempDir.resolve("quotes.csv.gz");
+        try (var out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            Files.copy(csv, out);
+        }
+        for (RollupDataProcessor processor : List.of(new RollupDataProcessor(), new RollupDataProcessor(997))) {
+            for (Path file : List.of(csv, gz)) {
+                var rollups = processor.processFile(file.toString(), bucketings);
+                assertEquals(bucketings, new ArrayList<>(rollups.keySet()));
+                for (TimeBucketing bucketing : bucketings) {
+                    assertSameStats(expected.get(bucketing), rollups.get(bucketing));
+                }
+            }
+        }
+        assertEquals(8 * 4, expected.get(TimeBucket.QUARTER).size());
+        assertEquals(8 * 12, expected.get(TimeBucket.MONTH).size());
+    }
+
+    @Test
+    public void timeBucketsFollowCalendarAndIsoWeeks() {
+        assertEquals(2013, TimeBucket.YEAR.bucket(20130208));
+        assertEquals("2013-Q1", TimeBucket.QUARTER.label(TimeBucket.QUARTER.bucket(20130331)));
+        assertEquals("2013-Q2", TimeBucket.QUARTER.label(TimeBucket.QUARTER.bucket(20130401)));
+        assertEquals("2013-02", TimeBucket.MONTH.label(TimeBucket.MONTH.bucket(20130208)));
+        assertEquals("2020-W53", TimeBucket.ISO_WEEK.label(TimeBucket.ISO_WEEK.bucket(20210103)));
+        assertEquals("2015-W01", TimeBucket.ISO_WEEK.label(TimeBucket.ISO_WEEK.bucket(20141229)));
+        // Without month and day, or not a real day
+        assertEquals("2013-Q0", TimeBucket.QUARTER.label(TimeBucket.QUARTER.bucket(20130000)));
+        assertEquals("2013-W00", TimeBucket.ISO_WEEK.label(TimeBucket.ISO_WEEK.bucket(20130230)));
+        assertEquals(TimeBucket.ISO_WEEK, TimeBucket.of("iso-week"));
+    }
+
+    @Test
+    public void tickerCubeMatchesNaiveAggregation() throws Exception {
+        // Many distinct tickers so that the tables have to grow
+        StringBuilder text = new StringBuilder(randomQuotes(5_000, 7L));
+        for (int i = 0; i < 5_000; i++) {
+            text.append(String.format(Locale.ROOT, "2015-06-01,1,2,0.5,%d.25,%d,X%d%n", i % 90, i, i));
+        }
+        Files.writeString(csv, text);
+
+        // year -> ticker -> { count, min, max, sum, volume }
+        Map<Integer, Map<String, double[]>> expected = new HashMap<>();
+        List<String> lines = Files.readAllLines(csv);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            double close = Double.parseDouble(fields[4]);
+            double[] cell = expected.computeIfAbsent(Integer.parseInt(fields[0].substring(0, 4)), y -> new HashMap<>())
+                    .computeIfAbsent(fields[6], t -> new double[] { 0, close, close, 0, 0 });
+            cell[0]++;
+            cell[1] = Math.min(cell[1], close);
+            cell[2] = Math.max(cell[2], close);
+            cell[3] += close;
+            cell[4] += Long.parseLong(fields[5]);
+        }
+
+        for (int batchSize : new int[] { 1 << 20, 512 }) {
+            TickerCube cube = new TickerCubeDataProcessor(batchSize).processFile(csv.toString());
+            assertEquals(lines.size() - 1, cube.getMetrics().getRowsParsed());
+            Map<Integer, Map<String, TickerYearStats>> actual = cube.toMap();
+            assertEquals(expected.keySet(), actual.keySet());
+            int cells = 0;
+            for (Map.Entry<Integer, Map<String, double[]>> year : expected.entrySet()) {
+                assertEquals(year.getValue().keySet(), actual.get(year.getKey()).keySet());
+                for (Map.Entry<String, double[]> ticker : year.getValue().entrySet()) {
+                    double[] cell = ticker.getValue();
+                    TickerYearStats stats = cube.get(year.getKey(), ticker.getKey());
+                    assertEquals((int) cell[0], stats.getQuoteCount());
+                    assertEquals(cell[1], stats.getMinClose());
+                    assertEquals(cell[2], stats.getMaxClose());
+                    assertEquals(cell[3] / cell[0], stats.getAverageClose(), 1e-9);
+                    assertEquals((long) cell[4], stats.getTotalVolume());
+                    cells++;
+                }
+            }
+            assertEquals(cells, cube.size());
+            assertNull(cube.get(1900, "T1"));
+        }
+    }
+
+    /**
+     * @return The top k tickers of the year by their best value in the column,
+     *         ties going to the ticker that reached the value first.
+     */
+    private List<String> naiveTop(List<String> lines, int year, int column, int k) {
+        Map<String, double[]> best = new HashMap<>(); // ticker -> { value, line }
+        for (int i = 1; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(",");
+            if (Integer.parseInt(fields[0].substring(0, 4)) == year) {
+                double value = Double.parseDouble(fields[column]);
+                double[] entry = best.get(fields[6]);
+                if (entry == null || value > entry[0]) {
+                    best.put(fields[6], new double[] { value, i });
+                }
+            }
+        }
+        List<String> tickers = new ArrayList<>(best.keySet());
+        tickers.sort((a, b) -> best.get(a)[0] != best.get(b)[0] ? Double.compare(best.get(b)[0], best.get(a)[0])
+                : Double.compare(best.get(a)[1], best.get(b)[1]));
+        return tickers.subList(0, Math.min(k, tickers.size()));
+    }
+
+    @Test
+    public void topTickersMatchNaiveRankingAcrossChunks() throws Exception {
+        List<String> lines = Files.readAllLines(csv);
+        Path gz = tempDir.resolve("quotes.csv.gz");
+        try (var out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            Files.copy(csv, out);
+        }
+        Map<DataProcessor, Path> runs = new LinkedHashMap<>();
+        runs.put(new SequentialDataProcessor(7), csv);
+        runs.put(new MemoryMappedDataProcessor(3, 997, 7), csv);
+        runs.put(new MemoryMappedDataProcessor(2, 1 << 20, 7), csv);
+        runs.put(new MemoryMappedDataProcessor(2, 1 << 20, 7), gz);
+        runs.put(new ParallelDataProcessor(3, 4096).withTopK(7), csv);
+        runs.put(new ParallelStreamsDataProcessor(997).withTopK(7), csv);
+        runs.put(new ColumnarDataProcessor(2, ColumnReductions.scalar(), 7), csv);
+        // A glob that only matches the one file
+        runs.put(new MultiFileDataProcessor(2, 7), tempDir.resolve("quotes.c?v"));
+        runs.put(new TailingDataProcessor(128, 7), csv);
+        for (Map.Entry<DataProcessor, Path> run : runs.entrySet()) {
+            Map<Integer, TickerStats> stats = run.getKey().processFile(run.getValue().toString());
+            for (int year : stats.keySet()) {
+                TopTickerStats top = (TopTickerStats) stats.get(year);
+                assertEquals(7, top.getK());
+                assertEquals(naiveTop(lines, year, 4, 7), top.getTopCloseTickers());
+                assertEquals(naiveTop(lines, year, 5, 7), top.getTopVolumeTickers());
+                assertEquals(top.getHighestCloseTicker(), top.getTopCloseTickers().get(0));
+                assertEquals(top.getHighestClose(), top.getTopCloses()[0]);
+                assertEquals(top.getHighestVolume(), top.getTopVolumes()[0]);
+            }
+        }
+        TopTickerStats plain = (TopTickerStats) new SequentialDataProcessor().processFile(csv.toString()).get(2012);
+        assertEquals(0, plain.getK());
+        assertTrue(plain.getTopCloseTickers().isEmpty());
+    }
+
+    @Test
+    public void sketchesApproximateDistinctTickersAndPercentiles() throws Exception {
+        Map<Integer, List<Double>> closes = new HashMap<>();
+        List<String> lines = Files.readAllLines(csv);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            closes.computeIfAbsent(Integer.parseInt(fields[0].substring(0, 4)), y -> new ArrayList<>())
+                    .add(Double.parseDouble(fields[4]));
+        }
+
+        Path cacheDir = tempDir.resolve("sketches");
+        SketchDataProcessor processor = new SketchDataProcessor(cacheDir.toString());
+        Map<Integer, YearSketch> sketches = processor.processFile(csv.toString());
+        assertEquals(closes.keySet(), sketches.keySet());
+        for (int year : closes.keySet()) {
+            YearSketch sketch = sketches.get(year);
+            double[] sorted = closes.get(year).stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            assertEquals(sorted.length, sketch.getQuoteCount());
+            assertEquals(50, sketch.getDistinctTickers(), 2);
+            for (double percentile : new double[] { 50, 95, 99 }) {
+                // Compare ranks, not values, within the sketch's rank error
+                double estimate = sketch.getClosePercentile(percentile);
+                int rank = Arrays.binarySearch(sorted, estimate);
+                assertTrue(rank >= 0, "percentile estimates are values from the input");
+                double low = (double) lowerBound(sorted, estimate) / sorted.length;
+                double high = (double) upperBound(sorted, estimate) / sorted.length;
+                assertTrue(low - 0.03 <= percentile / 100 && percentile / 100 <= high + 0.03,
+                        year + " p" + percentile + " = " + estimate);
+            }
+        }
+
+        // The sketches come back from the cache and merge across files
+        assertEquals(1, Files.list(cacheDir).count());
+        Map<Integer, YearSketch> cached = processor.processFile(csv.toString());
+        for (int year : sketches.keySet()) {
+            assertEquals(sketches.get(year).Summary(), cached.get(year).Summary());
+        }
+        Path dir = Files.createDirectory(tempDir.resolve("parts"));
+        Files.copy(csv, dir.resolve("a.csv"));
+        Files.copy(csv, dir.resolve("b.csv"));
+        Map<Integer, YearSketch> doubled = processor.processFile(dir.toString());
+        for (int year : sketches.keySet()) {
+            assertEquals(2 * sketches.get(year).getQuoteCount(), doubled.get(year).getQuoteCount());
+            assertEquals(sketches.get(year).getDistinctTickers(), doubled.get(year).getDistinctTickers());
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int i = 0;
+        while (i < sorted.length && sorted[i] < value) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int i = lowerBound(sorted, value);
+        while (i < sorted.length && sorted[i] == value) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,172 @@
+package edu.yu.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.implementation.SequentialDataProcessor;
+
+public class SnpAnalysisServerTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * @return The lines the server is expected to send for the file after its OK line.
+     */
+    private static List<String> expectedYears(Path csv) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Integer, TickerStats> entry
+                : new TreeMap<>(new SequentialDataProcessor().processFile(csv.toString())).entrySet()) {
+            TickerStats stats = entry.getValue();
+            lines.add(entry.getKey() + "\t" + stats.getQuoteCount() + "\t" + stats.getHighestCloseTicker() + "\t"
+                    + stats.getHighestClose() + "\t" + stats.getHighestVolumeTicker() + "\t"
+                    + stats.getHighestVolume());
+        }
+        return lines;
+    }
+
+    @Test
+    public void answersRequestsOnStdinProtocol() throws Exception {
+        Path csv = tempDir.resolve("quotes.csv");
+        Files.writeString(csv, DataProcessorTest.randomQuotes(2_000, 3L));
+        String requests = "1 PING\n2 ANALYZE sequential " + csv + "\n3 ANALYZE nope " + csv + "\n"
+                + "4 ANALYZE default " + tempDir.resolve("missing.csv") + "\n5 FROB\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnpAnalysisServer server = new SnpAnalysisServer(2, 4)) {
+            server.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), out);
+        }
+
+        Map<String, List<String>> responses = new HashMap<>();
+        String id = null;
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (line.indexOf('\t') < 0) {
+                id = line.split(" ")[0];
+            }
+            responses.computeIfAbsent(id, key -> new ArrayList<>()).add(line);
+        }
+        assertEquals(List.of("1 PONG"), responses.get("1"));
+        List<String> analysis = responses.get("2");
+        List<String> years = expectedYears(csv);
+        assertTrue(analysis.get(0).startsWith("2 OK " + years.size() + " "), analysis.get(0));
+        assertEquals(years, analysis.subList(1, analysis.size()));
+        assertTrue(responses.get("3").get(0).startsWith("3 ERROR Unknown processor"));
+        assertTrue(responses.get("4").get(0).startsWith("4 ERROR"));
+        assertTrue(responses.get("5").get(0).startsWith("5 ERROR Unknown command"));
+    }
+
+    @Test
+    public void servesConcurrentClientsOverSocket() throws Exception {
+        Path csv = tempDir.resolve("quotes.csv");
+        Files.writeString(csv, DataProcessorTest.randomQuotes(5_000, 4L));
+        List<String> years = expectedYears(csv);
+        int clients = 8;
+        int requestsPerClient = 25;
+        String[] processors = { "default", "sequential", "parallel", "parallel-streams", "memory-mapped" };
+
+        try (SnpAnalysisServer server = new SnpAnalysisServer(4, 64)) {
+            int port = server.listen(0);
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                results.add(pool.submit(() -> {
+                    int ok = 0;
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                            BufferedReader in = new BufferedReader(
+                                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                        for (int r = 0; r < requestsPerClient; r++) {
+                            out.println(r + " ANALYZE " + processors[(client + r) % processors.length] + " " + csv);
+                            String status = in.readLine();
+                            assertTrue(status.startsWith(r + " OK " + years.size() + " "), status);
+                            for (String year : years) {
+                                assertEquals(year, in.readLine());
+                            }
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            int ok = 0;
+            for (Future<Integer> result : results) {
+                ok += result.get();
+            }
+            pool.shutdown();
+            assertEquals(clients * requestsPerClient, ok);
+
+            // Each client waits for its answer, so no job ever found the queue full
+            String stats = stats(server);
+            assertTrue(stats.startsWith("s STATS completed=" + ok + " failed=0 rejected=0 "), stats);
+            assertTrue(stats.endsWith(" refused=0"), stats);
+        }
+    }
+
+    private static String stats(SnpAnalysisServer server) throws Exception {
+        ByteArrayOutputStream stats = new ByteArrayOutputStream();
+        server.serve(new ByteArrayInputStream("s STATS\n".getBytes(StandardCharsets.UTF_8)), stats);
+        return stats.toString(StandardCharsets.UTF_8).strip();
+    }
+
+    @Test
+    public void refusesConnectionsBeyondTheLimit() throws Exception {
+        try (SnpAnalysisServer server = new SnpAnalysisServer(1, 1, 1)) {
+            int port = server.listen(0);
+            try (Socket first = new Socket(InetAddress.getLoopbackAddress(), port);
+                    PrintWriter out = new PrintWriter(first.getOutputStream(), true, StandardCharsets.UTF_8);
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(first.getInputStream(), StandardCharsets.UTF_8))) {
+                // The first connection holds the only connection thread until it closes
+                out.println("1 PING");
+                assertEquals("1 PONG", in.readLine());
+                try (Socket second = new Socket(InetAddress.getLoopbackAddress(), port);
+                        BufferedReader refused = new BufferedReader(
+                                new InputStreamReader(second.getInputStream(), StandardCharsets.UTF_8))) {
+                    assertEquals("* BUSY", refused.readLine());
+                    assertNull(refused.readLine());
+                }
+                out.println("2 PING");
+                assertEquals("2 PONG", in.readLine());
+            }
+            assertTrue(stats(server).endsWith(" refused=1"), stats(server));
+        }
+    }
+
+    @Test
+    public void closeEndsIdleConnections() throws Exception {
+        try (SnpAnalysisServer server = new SnpAnalysisServer(1, 1, 2);
+                Socket client = new Socket(InetAddress.getLoopbackAddress(), server.listen(0));
+                PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.UTF_8);
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+            client.setSoTimeout(10_000);
+            out.println("1 PING");
+            assertEquals("1 PONG", in.readLine());
+            // The connection thread is now blocked reading the next request
+            server.close();
+            assertNull(in.readLine());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package edu.yu.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SnpDataAnalysisTest {
+
+    @Test
+    void parsesMegabytesIntoBytes() {
+        assertEquals(1L << 20, SnpDataAnalysis.parseMegabytes("1"));
+        assertEquals(256L << 20, SnpDataAnalysis.parseMegabytes("256"));
+        assertEquals((Long.MAX_VALUE >> 20) << 20, SnpDataAnalysis.parseMegabytes(Long.toString(Long.MAX_VALUE >> 20)));
+    }
+
+    @Test
+    void rejectsMegabytesThatAreNotPositiveOrOverflow() {
+        assertEquals(-1, SnpDataAnalysis.parseMegabytes("abc"));
+        assertEquals(-1, SnpDataAnalysis.parseMegabytes(""));
+        assertEquals(-1, SnpDataAnalysis.parseMegabytes("0"));
+        assertEquals(-1, SnpDataAnalysis.parseMegabytes("-5"));
+        assertEquals(-1, SnpDataAnalysis.parseMegabytes(Long.toString((Long.MAX_VALUE >> 20) + 1)));
+        assertEquals(-1, SnpDataAnalysis.parseMegabytes("99999999999999999999"));
+    }
+
+    @Test
+    void parsesBucketingsAndRejectsUnknownNames() {
+        assertEquals(List.of(TimeBucket.YEAR, TimeBucket.ISO_WEEK), SnpDataAnalysis.parseBucketings("year, iso-week"));
+        assertNull(SnpDataAnalysis.parseBucketings("year,fortnight"));
+        assertNull(SnpDataAnalysis.parseBucketings(""));
+    }
+}
@@ -0,0 +1,52 @@
+package edu.yu.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.implementation.SequentialDataProcessor;
+
+public class SnpDataGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] generate(long seed) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnpDataGenerator().rows(5_000).tickers(40).years(2001, 2004).hotTickers(2, 0.5).seed(seed).write(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void sameSeedProducesSameFile() throws Exception {
+        assertArrayEquals(generate(11), generate(11));
+        assertFalse(Arrays.equals(generate(11), generate(12)));
+    }
+
+    @Test
+    public void outputIsReadableByProcessors() throws Exception {
+        Path csv = tempDir.resolve("generated.csv");
+        Files.write(csv, generate(5));
+        Map<Integer, TickerStats> stats = new SequentialDataProcessor().processFile(csv.toString());
+        assertEquals(4, stats.size());
+        assertEquals(5_000, stats.values().stream().mapToInt(TickerStats::getQuoteCount).sum());
+    }
+
+    @Test
+    public void tickerNamesAreDistinct() {
+        assertEquals("A", new String(SnpDataGenerator.tickerName(0)));
+        assertEquals("Z", new String(SnpDataGenerator.tickerName(25)));
+        assertEquals("AA", new String(SnpDataGenerator.tickerName(26)));
+        assertEquals("ZZ", new String(SnpDataGenerator.tickerName(26 + 26 * 26 - 1)));
+        assertEquals("AAA", new String(SnpDataGenerator.tickerName(26 + 26 * 26)));
+    }
+}
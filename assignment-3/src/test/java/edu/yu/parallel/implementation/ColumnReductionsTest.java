@@ -0,0 +1,65 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ColumnReductionsTest {
+    private final ColumnReductions scalar = ColumnReductions.scalar();
+
+    @Test
+    public void scalarFindsFirstMaximumAndRunEnd() {
+        double[] closes = { 1.5, Double.NaN, 3.0, 2.0, 3.0 };
+        assertEquals(2, scalar.argMax(closes, 0, 5));
+        assertEquals(4, scalar.argMax(closes, 3, 5));
+        assertEquals(-1, scalar.argMax(new double[] { Double.NEGATIVE_INFINITY, Double.NaN }, 0, 2));
+        assertEquals(-1, scalar.argMax(closes, 2, 2));
+
+        long[] volumes = { Long.MIN_VALUE, 7, 7, 5 };
+        assertEquals(1, scalar.argMax(volumes, 0, 4));
+        assertEquals(-1, scalar.argMax(volumes, 0, 1));
+
+        int[] dates = { 20130102, 20131231, 20140101, 20130105 };
+        assertEquals(2, scalar.firstOutside(dates, 0, 4, 20130000, 20140000));
+        assertEquals(3, scalar.firstOutside(dates, 2, 3, 20140000, 20150000));
+    }
+
+    @Test
+    public void bestIsScalarWithoutTheVectorBuild() {
+        assumeFalse(ColumnReductions.isVectorAvailable(), "built with -Pvector");
+        assertSame(scalar, ColumnReductions.best());
+        assertThrows(UnsupportedOperationException.class, ColumnReductions::vector);
+    }
+
+    @Test
+    public void vectorMatchesScalar() {
+        assumeTrue(ColumnReductions.isVectorAvailable(), "build with -Pvector");
+        ColumnReductions vector = ColumnReductions.vector();
+        Random random = new Random(11);
+        for (int trial = 0; trial < 2_000; trial++) {
+            int length = random.nextInt(200);
+            double[] closes = new double[length];
+            long[] volumes = new long[length];
+            int[] dates = new int[length];
+            // Few distinct values, so that the maximum is often tied across lanes
+            for (int i = 0; i < length; i++) {
+                int kind = random.nextInt(20);
+                closes[i] = kind == 0 ? Double.NaN : kind == 1 ? Double.NEGATIVE_INFINITY : random.nextInt(8) / 2.0;
+                volumes[i] = kind == 2 ? Long.MIN_VALUE : random.nextInt(8) * 100L;
+                dates[i] = (random.nextInt(50) == 0 ? 2014 : 2013) * 10000 + 101 + random.nextInt(1100);
+            }
+            int from = length == 0 ? 0 : random.nextInt(length);
+            int to = from + random.nextInt(length - from + 1);
+            assertEquals(scalar.argMax(closes, from, to), vector.argMax(closes, from, to));
+            assertEquals(scalar.argMax(volumes, from, to), vector.argMax(volumes, from, to));
+            assertEquals(scalar.firstOutside(dates, from, to, 20130000, 20140000),
+                    vector.firstOutside(dates, from, to, 20130000, 20140000));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LineSpliteratorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void splitsAtLineStartsAndCoversTheFile() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("line ").append(i).append(i % 7 == 0 ? " with some extra padding" : "").append('\n');
+        }
+        text.append("unterminated last line");
+        byte[] bytes = text.toString().getBytes();
+        Path file = tempDir.resolve("lines.txt");
+        Files.write(file, bytes);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Split as deeply as possible, keeping the pieces in file order
+            List<Spliterator<ByteBuffer>> pieces = new ArrayList<>();
+            Deque<Spliterator<ByteBuffer>> pending = new ArrayDeque<>();
+            pending.push(new LineSpliterator(channel, 0, bytes.length, 10));
+            while (!pending.isEmpty()) {
+                Spliterator<ByteBuffer> current = pending.pop();
+                Spliterator<ByteBuffer> prefix = current.trySplit();
+                if (prefix == null) {
+                    pieces.add(current);
+                } else {
+                    pending.push(current);
+                    pending.push(prefix);
+                }
+            }
+            assertTrue(pieces.size() > 50);
+
+            ByteArrayOutputStream joined = new ByteArrayOutputStream();
+            for (Spliterator<ByteBuffer> piece : pieces) {
+                piece.forEachRemaining(slice -> {
+                    int start = joined.size();
+                    assertTrue(start == 0 || bytes[start - 1] == '\n');
+                    byte[] copy = new byte[slice.remaining()];
+                    slice.get(copy);
+                    joined.write(copy, 0, copy.length);
+                });
+                assertEquals(0, piece.estimateSize());
+            }
+            assertArrayEquals(bytes, joined.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.ProcessingException;
+
+public class ParallelGzipInputStreamTest {
+    @TempDir
+    Path tempDir;
+
+    private static byte[] text(int lines) {
+        Random random = new Random(9);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("2013-02-08,").append(random.nextInt(10_000) / 100.0).append(",AAL\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gzip(byte[] data, int from, int to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data, from, to - from);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A member with every optional header field and stored (uncompressed)
+     * deflate blocks, so that gzip magic bytes in the data show up verbatim.
+     */
+    private static byte[] storedMemberWithHeaderFields(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] { 0x1f, (byte) 0x8b, 8, 4 | 8 | 16 | 2, 0, 0, 0, 0, 0, (byte) 255 });
+        out.writeBytes(new byte[] { 6, 0, 'B', 'C', 2, 0, 0, 0 });
+        out.writeBytes("quotes.csv\0a comment\0".getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(new byte[] { 0, 0 });
+        Deflater deflater = new Deflater(Deflater.NO_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buf = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buf, 0, deflater.deflate(buf));
+        }
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        for (long value : new long[] { crc.getValue(), data.length }) {
+            for (int i = 0; i < 4; i++) {
+                out.write((int) (value >>> (8 * i)));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] readAll(Path file, int threads) throws IOException {
+        try (InputStream in = new ParallelGzipInputStream(file.toString(), threads)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    public void inflatesSingleAndMultiMemberFiles() throws IOException {
+        byte[] data = text(50_000);
+        Path single = tempDir.resolve("single.gz");
+        Files.write(single, gzip(data, 0, data.length));
+        assertArrayEquals(data, readAll(single, 3));
+
+        // Members of about 10 KB, as bgzip writes them but smaller
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        for (int from = 0; from < data.length; from += 10_000) {
+            members.writeBytes(gzip(data, from, Math.min(data.length, from + 10_000)));
+        }
+        byte[] fake = { 'x', 0x1f, (byte) 0x8b, 8, 0, 'y', '\n' };
+        members.writeBytes(storedMemberWithHeaderFields(fake));
+        members.writeBytes(storedMemberWithHeaderFields(data));
+        members.writeBytes(new byte[16]);
+        Path multi = tempDir.resolve("multi.gz");
+        Files.write(multi, members.toByteArray());
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.writeBytes(data);
+        expected.writeBytes(fake);
+        expected.writeBytes(data);
+        for (int threads : new int[] { 1, 2, 8 }) {
+            assertArrayEquals(expected.toByteArray(), readAll(multi, threads), "threads = " + threads);
+        }
+    }
+
+    @Test
+    public void findsMembersAsTheReaderGetsToThem() throws IOException {
+        byte[] data = text(20_000);
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        for (int from = 0; from < data.length; from += 3_000) {
+            members.writeBytes(gzip(data, from, Math.min(data.length, from + 3_000)));
+        }
+        Path multi = tempDir.resolve("multi.gz");
+        Files.write(multi, members.toByteArray());
+
+        // A scan-ahead shorter than a member only finds the next one once the reader is there
+        for (int scanAhead : new int[] { 1, 4096, ParallelGzipInputStream.SCAN_AHEAD }) {
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            try (InputStream in = new ParallelGzipInputStream(multi.toString(), 3, scanAhead)) {
+                for (int i = 0; i < 1_000; i++) {
+                    read.write(in.read());
+                }
+                read.writeBytes(in.readAllBytes());
+                assertEquals(-1, in.read());
+            }
+            assertArrayEquals(data, read.toByteArray(), "scanAhead = " + scanAhead);
+        }
+    }
+
+    @Test
+    public void rejectsCorruptAndUnsupportedInput() throws Exception {
+        byte[] member = gzip(text(1_000), 0, text(1_000).length);
+        member[member.length - 6] ^= 1;
+        Path corrupt = tempDir.resolve("corrupt.gz");
+        Files.write(corrupt, member);
+        assertThrows(IOException.class, () -> readAll(corrupt, 2));
+
+        Path truncated = tempDir.resolve("truncated.gz");
+        Files.write(truncated, Arrays.copyOf(member, member.length / 2));
+        assertThrows(IOException.class, () -> readAll(truncated, 2));
+
+        Path zstd = tempDir.resolve("quotes.csv.zst");
+        Files.write(zstd, new byte[] { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0 });
+        assertEquals(CompressedInput.Format.ZSTD, CompressedInput.format(zstd.toString()));
+        assertThrows(ProcessingException.class, () -> CompressedInput.open(zstd.toString()));
+    }
+}
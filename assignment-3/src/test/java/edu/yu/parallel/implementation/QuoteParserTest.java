@@ -0,0 +1,70 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.ProcessingException;
+
+public class QuoteParserTest {
+
+    private static double parseDouble(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        return QuoteParser.parseDouble(bytes, 0, bytes.length);
+    }
+
+    private static List<String> parseAll(String text, int blockSize) throws Exception {
+        List<String> quotes = new ArrayList<>();
+        new QuoteParser(blockSize).parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)), true,
+                (year, close, volume, line, tickerStart, tickerLength) -> quotes.add(
+                        year + " " + close + " " + volume + " " + QuoteParser.ascii(line, tickerStart, tickerLength)));
+        return quotes;
+    }
+
+    @Test
+    public void decimalsMatchDoubleParseDouble() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            String s = Long.toString(random.nextInt(10_000_000)) + "." + random.nextInt(10_000);
+            assertEquals(Double.parseDouble(s), parseDouble(s), s);
+        }
+        for (String s : new String[] { "0", "-0.0", "14.75", ".5", "5.", "1e3", "+2.5", "123456789012345678.25" }) {
+            assertEquals(Double.parseDouble(s), parseDouble(s), s);
+        }
+        assertEquals(Double.NaN, parseDouble(""));
+        assertEquals(Double.NaN, parseDouble("."));
+        assertEquals(Double.NaN, parseDouble("1.2.3"));
+    }
+
+    @Test
+    public void parsesAcrossBlockBoundaries() throws Exception {
+        String text = "date,open,high,low,close,volume,Name\r\n"
+                + "2013-02-08,15.07,15.12,14.63,14.75,8407500,AAL\r\n"
+                + "\n"
+                + "2014-02-11,,,,14.46,8882000,ZTS";
+        List<String> expected = List.of("2013 14.75 8407500 AAL", "2014 14.46 8882000 ZTS");
+        assertEquals(expected, parseAll(text, 64));
+        assertEquals(expected, parseAll(text, QuoteParser.DEFAULT_BLOCK_SIZE));
+        assertEquals(expected.subList(1, 2), parseAll(text.substring(text.indexOf("\n\n") + 2), 64));
+    }
+
+    @Test
+    public void rejectsMalformedLines() {
+        QuoteParser parser = new QuoteParser();
+        for (String line : new String[] { "2013-02-08,1,1,1,1,1", "2013-02-08,1,1,1,1,1,A,B", "13-02-08,1,1,1,1,1,A",
+                "2013-02-08,1,1,1,x,1,A", "2013-02-08,1,1,1,1,1.5,A" }) {
+            byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+            assertFalse(parser.parseLine(bytes, 0, bytes.length, (y, c, v, l, s, n) -> {
+            }), line);
+        }
+        assertThrows(ProcessingException.class, () -> parseAll("2013-02-08,1,1,1,1,1\n", 64));
+    }
+}
@@ -0,0 +1,56 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class SketchTest {
+    @Test
+    public void hyperLogLogEstimatesWithinFewStandardErrorsAfterMerging() throws Exception {
+        HyperLogLog[] parts = { new HyperLogLog(), new HyperLogLog(), new HyperLogLog() };
+        int distinct = 200_000;
+        for (int i = 0; i < 2 * distinct; i++) {
+            byte[] ticker = ("T" + (i % distinct)).getBytes(StandardCharsets.US_ASCII);
+            parts[i % parts.length].add(ticker, 0, ticker.length);
+        }
+        HyperLogLog merged = new HyperLogLog().merge(parts[0]).merge(parts[1]).merge(parts[2]);
+        assertEquals(distinct, merged.estimate(), distinct * 0.05);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        merged.writeTo(new DataOutputStream(bytes));
+        HyperLogLog read = HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(merged.estimate(), read.estimate());
+    }
+
+    @Test
+    public void kllQuantilesStayWithinRankErrorAfterMerging() throws Exception {
+        KllSketch merged = new KllSketch();
+        int n = 0;
+        for (int part = 0; part < 8; part++) {
+            KllSketch sketch = new KllSketch();
+            for (int i = 0; i < 125_000; i++) {
+                // A permutation of 0 .. 999_999, so the true quantile of q is about q * 1e6
+                sketch.add((n++ * 7919L) % 1_000_000);
+            }
+            merged.merge(sketch);
+        }
+        assertEquals(1_000_000, merged.getCount());
+        for (double q : new double[] { 0.01, 0.5, 0.95, 0.99 }) {
+            assertEquals(q * 1_000_000, merged.quantile(q), 20_000, "q = " + q);
+        }
+        assertEquals(0, merged.getMin());
+        assertEquals(999_999, merged.getMax());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        merged.writeTo(new DataOutputStream(bytes));
+        KllSketch read = KllSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(merged.getCount(), read.getCount());
+        assertEquals(merged.quantile(0.5), read.quantile(0.5));
+    }
+}
@@ -0,0 +1,72 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class TickerDictionaryTest {
+    private static byte[] line(int ticker) {
+        return ("2013-02-08,1,2,3,4,5,T" + ticker).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void concurrentLookupsAgreeOnDenseIds() throws Exception {
+        TickerDictionary dictionary = new TickerDictionary();
+        int tickers = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t * 997;
+                futures.add(executor.submit(() -> {
+                    int[] ids = new int[tickers];
+                    for (int i = 0; i < tickers; i++) {
+                        int ticker = (i + offset) % tickers;
+                        byte[] line = line(ticker);
+                        ids[ticker] = dictionary.id(line, 21, line.length - 21);
+                        // Ids another thread just added must already resolve
+                        assertEquals("T" + ticker, dictionary.name(ids[ticker]));
+                    }
+                    return ids;
+                }));
+            }
+            int[] expected = futures.get(0).get();
+            for (Future<int[]> future : futures) {
+                int[] ids = future.get();
+                for (int i = 0; i < tickers; i++) {
+                    assertEquals(expected[i], ids[i]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(tickers, dictionary.size());
+        for (int i = 0; i < tickers; i++) {
+            int id = dictionary.id("T" + i);
+            assertEquals("T" + i, dictionary.name(id));
+        }
+        assertEquals(tickers, dictionary.size());
+    }
+
+    @Test
+    public void mergeTranslatesIdsBetweenDictionaries() {
+        TickerStatsAccumulator first = new TickerStatsAccumulator(new TickerDictionary());
+        first.accept("AAA", 1.0, 10);
+        TickerStatsAccumulator second = new TickerStatsAccumulator(new TickerDictionary());
+        second.accept("ZZZ", 0.5, 5);
+        second.accept("BBB", 2.0, 20);
+
+        first.merge(second);
+        assertEquals("BBB", first.getHighestCloseTicker());
+        assertEquals("BBB", first.getHighestVolumeTicker());
+        assertEquals(3, first.getQuoteCount());
+    }
+}
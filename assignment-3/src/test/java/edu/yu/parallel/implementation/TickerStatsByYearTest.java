@@ -0,0 +1,51 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.TickerStats;
+
+public class TickerStatsByYearTest {
+    private static final byte[] TICKERS = "AAA,BBB,CCC,DDD".getBytes(StandardCharsets.US_ASCII);
+
+    private static void fill(TickerStatsByYear table, Random random, int quotes) {
+        for (int i = 0; i < quotes; i++) {
+            int year = 1990 + random.nextInt(40);
+            table.quote(year, random.nextInt(20), random.nextInt(20), TICKERS, 4 * random.nextInt(4), 3);
+        }
+    }
+
+    private static void assertSame(Map<Integer, TickerStats> expected, Map<Integer, TickerStats> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Integer year : expected.keySet()) {
+            assertEquals(expected.get(year).Summary(), actual.get(year).Summary());
+        }
+    }
+
+    @Test
+    public void mergeIsAssociativeAndMatchesSingleTable() {
+        TickerStatsByYear whole = new TickerStatsByYear(new TickerDictionary());
+        TickerStatsByYear[] parts = new TickerStatsByYear[6];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new TickerStatsByYear(new TickerDictionary());
+            fill(parts[i], new Random(i), 500);
+            fill(whole, new Random(i), 500);
+        }
+
+        TickerStatsByYear left = new TickerStatsByYear(new TickerDictionary());
+        for (TickerStatsByYear part : parts) {
+            left.merge(part);
+        }
+        TickerStatsByYear right = new TickerStatsByYear(new TickerDictionary())
+                .merge(parts[0].merge(parts[1]))
+                .merge(parts[2].merge(parts[3].merge(parts[4].merge(parts[5]))));
+
+        assertSame(whole.toMap(), left.toMap());
+        assertSame(whole.toMap(), right.toMap());
+    }
+}
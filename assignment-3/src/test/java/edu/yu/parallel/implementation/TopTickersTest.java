@@ -0,0 +1,54 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TopTickersTest {
+    private static List<Integer> ids(TopTickers top) {
+        List<Integer> ids = new ArrayList<>();
+        for (int position : top.ranking()) {
+            ids.add(top.getId(position));
+        }
+        return ids;
+    }
+
+    @Test
+    public void mergedPartsMatchOneHeapOverTheWholeStream() {
+        // Few tickers and values so that ties and evictions are common
+        Random random = new Random(1);
+        for (int run = 0; run < 20_000; run++) {
+            int k = 1 + random.nextInt(4);
+            int quotes = 1 + random.nextInt(30);
+            int cut = random.nextInt(quotes + 1);
+            TopTickers whole = new TopTickers(k);
+            TopTickers first = new TopTickers(k);
+            TopTickers second = new TopTickers(k);
+            for (int i = 0; i < quotes; i++) {
+                int id = random.nextInt(8);
+                long value = random.nextInt(4);
+                if (whole.accepts(value)) {
+                    whole.offer(id, value, i);
+                }
+                TopTickers part = i < cut ? first : second;
+                if (part.accepts(value)) {
+                    part.offer(id, value, i < cut ? i : i - cut);
+                }
+            }
+            assertEquals(ids(whole), ids(first.merge(second, cut, null)));
+        }
+    }
+
+    @Test
+    public void sortableKeepsDoubleOrder() {
+        double[] values = { Double.NEGATIVE_INFINITY, -2.5, -0.0, 0.0, 1e-300, 3.25, Double.POSITIVE_INFINITY };
+        for (int i = 0; i + 1 < values.length; i++) {
+            assertEquals(values[i], TopTickers.unsortable(TopTickers.sortable(values[i])));
+            assertEquals(-1, Long.signum(TopTickers.sortable(values[i]) - TopTickers.sortable(values[i + 1])));
+        }
+    }
+}
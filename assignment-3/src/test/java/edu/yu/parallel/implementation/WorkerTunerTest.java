@@ -0,0 +1,53 @@
+package edu.yu.parallel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.SnpDataGenerator;
+
+public class WorkerTunerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void sweepFindsMeasuredSettings() throws Exception {
+        Path csv = tempDir.resolve("sample.csv");
+        new SnpDataGenerator().rows(50_000).seed(5).write(csv.toString());
+
+        WorkerSettings best = new WorkerTuner(csv.toString(), 4, 1).sweep();
+        assertTrue(Arrays.asList(1, 2, 4).contains(best.getWorkers()), best.toString());
+        assertTrue(Arrays.stream(WorkerTuner.CHUNK_SIZES).anyMatch(size -> size == best.getChunkSize()));
+        assertTrue(best.getBytesPerSecond() > 0);
+        assertEquals(new SequentialDataProcessor().processFile(csv.toString()).keySet(),
+                best.processor().processFile(csv.toString()).keySet());
+    }
+
+    @Test
+    public void settingsAreSavedForThisMachineOnly() throws Exception {
+        Path file = tempDir.resolve("tuning/settings.properties");
+        assertNull(WorkerSettings.load(file));
+
+        new WorkerSettings(3, 4L << 20, true, 5e8).save(file);
+        WorkerSettings loaded = WorkerSettings.load(file);
+        assertEquals(3, loaded.getWorkers());
+        assertEquals(4L << 20, loaded.getChunkSize());
+        assertTrue(loaded.isPadded());
+        assertEquals(5e8, loaded.getBytesPerSecond());
+
+        String other = Files.readString(file).replaceAll("(?m)^cores=.*$", "cores=100000");
+        Files.writeString(file, other);
+        assertNull(WorkerSettings.load(file));
+
+        Files.writeString(file, "cores=" + Runtime.getRuntime().availableProcessors() + "\narch="
+                + System.getProperty("os.arch") + "\nworkers=x\n");
+        assertNull(WorkerSettings.load(file));
+    }
+}
@@ -0,0 +1,116 @@
+package edu.yu.parallel.implementation;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The column reductions on SIMD lanes with the incubating Vector API.
+ * <p>
+ * An argmax keeps, in each lane, the highest value seen and the index where
+ * it was first seen, replacing them only on a strictly greater value, just
+ * as the scalar loop does. At the end the lanes are folded into the first
+ * index of the overall maximum, and the rows past the last full vector are
+ * finished with the scalar loop. Doubles and longs use species of the same
+ * width, so a mask over doubles can select lanes of indexes.
+ */
+final class VectorColumnReductions extends ColumnReductions {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    VectorColumnReductions() {
+        if (LONGS.length() < 2 || DOUBLES.length() != LONGS.length()) {
+            throw new UnsupportedOperationException(LONGS.length() + " lanes of longs are not worth vectorizing");
+        }
+    }
+
+    @Override
+    public int firstOutside(int[] values, int from, int to, int low, int high) {
+        int i = from;
+        for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, values, i);
+            VectorMask<Integer> outside = v.compare(VectorOperators.LT, low).or(v.compare(VectorOperators.GE, high));
+            if (outside.anyTrue()) {
+                return i + outside.firstTrue();
+            }
+        }
+        for (; i < to; i++) {
+            if (values[i] < low || values[i] >= high) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    @Override
+    public int argMax(double[] values, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        int at = -1;
+        int i = from;
+        int bound = from + DOUBLES.loopBound(to - from);
+        if (i < bound) {
+            DoubleVector maxes = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+            LongVector indexes = LongVector.broadcast(LONGS, -1);
+            LongVector lanes = LongVector.zero(LONGS).addIndex(1);
+            for (; i < bound; i += DOUBLES.length()) {
+                DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+                VectorMask<Double> greater = v.compare(VectorOperators.GT, maxes);
+                maxes = maxes.blend(v, greater);
+                indexes = indexes.blend(lanes.add(i), greater.cast(LONGS));
+            }
+            for (int lane = 0; lane < DOUBLES.length(); lane++) {
+                int index = (int) indexes.lane(lane);
+                double value = maxes.lane(lane);
+                if (index >= 0 && (value > max || (value == max && index < at))) {
+                    max = value;
+                    at = index;
+                }
+            }
+        }
+        for (; i < to; i++) {
+            if (values[i] > max) {
+                max = values[i];
+                at = i;
+            }
+        }
+        return at;
+    }
+
+    @Override
+    public int argMax(long[] values, int from, int to) {
+        long max = Long.MIN_VALUE;
+        int at = -1;
+        int i = from;
+        int bound = from + LONGS.loopBound(to - from);
+        if (i < bound) {
+            LongVector maxes = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+            LongVector indexes = LongVector.broadcast(LONGS, -1);
+            LongVector lanes = LongVector.zero(LONGS).addIndex(1);
+            for (; i < bound; i += LONGS.length()) {
+                LongVector v = LongVector.fromArray(LONGS, values, i);
+                VectorMask<Long> greater = v.compare(VectorOperators.GT, maxes);
+                maxes = maxes.blend(v, greater);
+                indexes = indexes.blend(lanes.add(i), greater);
+            }
+            for (int lane = 0; lane < LONGS.length(); lane++) {
+                int index = (int) indexes.lane(lane);
+                long value = maxes.lane(lane);
+                if (index >= 0 && (value > max || (value == max && index < at))) {
+                    max = value;
+                    at = index;
+                }
+            }
+        }
+        for (; i < to; i++) {
+            if (values[i] > max) {
+                max = values[i];
+                at = i;
+            }
+        }
+        return at;
+    }
+}